@@ -4,10 +4,19 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSources;
+import net.coderodde.stat.support.AliasProbabilityDistribution;
+import net.coderodde.stat.support.ArrayBinaryTreeProbabilityDistribution;
 import net.coderodde.stat.support.ArrayProbabilityDistribution;
 import net.coderodde.stat.support.BinarySearchProbabilityDistribution;
 import net.coderodde.stat.support.BinaryTreeProbabilityDistribution;
+import net.coderodde.stat.support.BucketProbabilityDistribution;
+import net.coderodde.stat.support.ConcurrentProbabilityDistribution;
+import net.coderodde.stat.support.FenwickProbabilityDistribution;
+import net.coderodde.stat.support.HuffmanTreeProbabilityDistribution;
 import net.coderodde.stat.support.LinkedListProbabilityDistribution;
+import net.coderodde.stat.support.OptimisticArrayBinaryTreeProbabilityDistribution;
+import net.coderodde.stat.support.ShardedProbabilityDistribution;
 
 public class Demo {
 
@@ -51,19 +60,68 @@ public class Demo {
         AbstractProbabilityDistribution<Integer> arraypd = 
                 new ArrayProbabilityDistribution<>();
 
+        AbstractProbabilityDistribution<Integer> selforganizingpd =
+                new ArrayProbabilityDistribution<>(
+                        RandomSources.threadLocal(), true);
+
         AbstractProbabilityDistribution<Integer> listpd = 
                 new LinkedListProbabilityDistribution<>();
 
         AbstractProbabilityDistribution<Integer> treepd =
                 new BinaryTreeProbabilityDistribution<>();
 
+        AbstractProbabilityDistribution<Integer> huffmanpd =
+                new HuffmanTreeProbabilityDistribution<>();
+
         AbstractProbabilityDistribution<Integer> binarypd = 
                 new BinarySearchProbabilityDistribution<>();
         
+        AbstractProbabilityDistribution<Integer> eytzingerpd =
+                new BinarySearchProbabilityDistribution<>(
+                        RandomSources.threadLocal(), true);
+        
+        AbstractProbabilityDistribution<Integer> aliaspd =
+                new AliasProbabilityDistribution<>();
+        
+        AbstractProbabilityDistribution<Integer> fenwickpd =
+                new FenwickProbabilityDistribution<>();
+        
+        AbstractProbabilityDistribution<Integer> arraytreepd =
+                new ArrayBinaryTreeProbabilityDistribution<>();
+        
+        AbstractProbabilityDistribution<Integer> bucketpd =
+                new BucketProbabilityDistribution<>();
+
+        AbstractProbabilityDistribution<Integer> concurrentpd =
+                new ConcurrentProbabilityDistribution<>();
+
+        List<AbstractProbabilityDistribution<Integer>> shards =
+                new ArrayList<>();
+
+        for (int i = 0; i < 8; ++i) {
+            shards.add(new BinaryTreeProbabilityDistribution<Integer>());
+        }
+
+        AbstractProbabilityDistribution<Integer> shardedpd =
+                new ShardedProbabilityDistribution<>(shards);
+
+        AbstractProbabilityDistribution<Integer> optimisticpd =
+                new OptimisticArrayBinaryTreeProbabilityDistribution<>();
+        
         profile(arraypd);
+        profile(selforganizingpd);
         profile(listpd);
         profile(treepd);
+        profile(huffmanpd);
         profile(binarypd);
+        profile(eytzingerpd);
+        profile(aliaspd);
+        profile(fenwickpd);
+        profile(arraytreepd);
+        profile(bucketpd);
+        profile(concurrentpd);
+        profile(shardedpd);
+        profile(optimisticpd);
     }
     
     private static void binaryTreeProbabilityDistributionDemo() {
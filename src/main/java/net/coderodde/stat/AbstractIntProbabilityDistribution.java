@@ -0,0 +1,214 @@
+package net.coderodde.stat;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * This class implements an abstract base class for probability distributions
+ * over primitive {@code int} elements. It follows the contract of
+ * {@link AbstractProbabilityDistribution}, but neither the elements nor the
+ * sampled values are ever boxed, and no {@code hashCode}/{@code equals} calls
+ * are made.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public abstract class AbstractIntProbabilityDistribution {
+
+    /**
+     * The sum of all weights. Subclasses either assign this field directly
+     * from an exactly recomputed value, or maintain it incrementally via
+     * {@link #addToTotalWeight(double)} and {@link #setTotalWeight(double)}.
+     */
+    protected double totalWeight;
+
+    /**
+     * The running sum behind {@link #totalWeight} when it is maintained
+     * incrementally.
+     */
+    private double totalWeightSum;
+
+    /**
+     * The low-order bits lost by {@link #totalWeightSum} so far.
+     */
+    private double totalWeightCompensation;
+
+    /**
+     * The random source of this probability distribution.
+     */
+    protected final RandomSource random;
+
+    /**
+     * Constructs this probability distribution.
+     */
+    protected AbstractIntProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    protected AbstractIntProbabilityDistribution(Random random) {
+        this(RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    protected AbstractIntProbabilityDistribution(RandomSource random) {
+        this.random =
+                Objects.requireNonNull(random,
+                                       "The random source is null.");
+    }
+
+    /**
+     * Returns {@code true} if this probability distribution is empty. Otherwise
+     * {@code false} is returned.
+     *
+     * @return {@code true} if this probability distribution is empty.
+     */
+    public abstract boolean isEmpty();
+
+    /**
+     * Returns the number of elements in this probability distribution.
+     *
+     * @return the size of this probability distribution.
+     */
+    public abstract int size();
+
+    /**
+     * Adds the element {@code element} to this probability distribution, and
+     * assigns {@code weight} as its weight. If the element is already present,
+     * {@code weight} is added to its current weight.
+     *
+     * @param element the element to add.
+     * @param weight  the weight of the new element.
+     *
+     * @return {@code true} only if the input element did not reside in this
+     *         structure and was successfully added.
+     */
+    public abstract boolean addElement(int element, double weight);
+
+    /**
+     * Returns a randomly chosen element from this probability distribution
+     * taking the weights into account.
+     *
+     * @return a randomly chosen element.
+     */
+    public abstract int sampleInt();
+
+    /**
+     * Samples {@code count} elements independently and stores them in
+     * {@code out[0], ..., out[count - 1]}. This is equivalent to calling
+     * {@link #sampleInt()} {@code count} times, but implementations may
+     * amortize the per-call overhead over the entire batch.
+     *
+     * @param count the number of elements to sample.
+     * @param out   the array to which to store the sampled elements.
+     */
+    public void sampleInts(int count, int[] out) {
+        checkSampleCount(count, out.length);
+
+        if (count == 0) {
+            return;
+        }
+
+        checkNotEmpty(size());
+
+        for (int i = 0; i < count; ++i) {
+            out[i] = sampleInt();
+        }
+    }
+
+    /**
+     * Returns {@code true} if this probability distribution contains the
+     * element {@code element}.
+     *
+     * @param element the element to query.
+     * @return {@code true} if the input element is in this probability
+     *         distribution; {@code false} otherwise.
+     */
+    public abstract boolean contains(int element);
+
+    /**
+     * Removes the element {@code element} from this probability distribution.
+     *
+     * @param element the element to remove.
+     * @return {@code true} if the element was present in this probability
+     *         distribution and was successfully removed.
+     */
+    public abstract boolean removeElement(int element);
+
+    /**
+     * Removes all elements from this probability distribution.
+     */
+    public abstract void clear();
+
+    /**
+     * Adds {@code delta} to the total weight using Neumaier's compensated
+     * summation. Unlike with plain {@code +=}, whose error grows with the
+     * number of updates, the total stays accurate to a few units in the last
+     * place for all practical numbers of additions and removals.
+     *
+     * @param delta the amount to add; negative for removals.
+     */
+    protected void addToTotalWeight(double delta) {
+        double sum = totalWeightSum + delta;
+
+        if (Math.abs(totalWeightSum) >= Math.abs(delta)) {
+            totalWeightCompensation += (totalWeightSum - sum) + delta;
+        } else {
+            totalWeightCompensation += (delta - sum) + totalWeightSum;
+        }
+
+        totalWeightSum = sum;
+        totalWeight = sum + totalWeightCompensation;
+    }
+
+    /**
+     * Sets the total weight and discards the compensation accumulated by
+     * {@link #addToTotalWeight(double)}.
+     *
+     * @param weight the new total weight.
+     */
+    protected void setTotalWeight(double weight) {
+        totalWeightSum = weight;
+        totalWeightCompensation = 0.0;
+        totalWeight = weight;
+    }
+
+    /**
+     * Checks that the element weight is valid. The weight must not be a
+     * <tt>NaN</tt> and must be positive, but not a positive infinity.
+     *
+     * @param weight the weight to validate.
+     */
+    protected void checkWeight(double weight) {
+        AbstractProbabilityDistribution.validateWeight(weight);
+    }
+
+    /**
+     * Checks that the number of elements to sample is not negative and fits
+     * in the output buffer.
+     *
+     * @param count        the number of elements to sample.
+     * @param bufferLength the length of the output buffer.
+     */
+    protected static void checkSampleCount(int count, int bufferLength) {
+        AbstractProbabilityDistribution.checkSampleCount(count, bufferLength);
+    }
+
+    /**
+     * Checks that this probability distribution contains at least one element.
+     *
+     * @param size the number of elements in this probability distribution.
+     */
+    protected void checkNotEmpty(int size) {
+        AbstractProbabilityDistribution.validateNotEmpty(size);
+    }
+}
@@ -0,0 +1,246 @@
+package net.coderodde.stat;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * This class implements an abstract base class for probability distributions
+ * whose weights are positive {@code long} integers, such as counts. All the
+ * sums are exact, and the random values are drawn uniformly from
+ * <tt>[0, totalWeight)</tt> via unbiased bounded {@code nextLong}, so that no
+ * round-off errors accumulate and the samples depend only on the state of the
+ * distribution and the random source.
+ *
+ * <p>The total weight may not exceed {@link Long#MAX_VALUE}; adding a weight
+ * that would make it overflow throws an {@link IllegalArgumentException}.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public abstract class AbstractLongWeightProbabilityDistribution<E> {
+
+    /**
+     * The exact sum of all weights.
+     */
+    protected long totalWeight;
+
+    /**
+     * The random source of this probability distribution.
+     */
+    protected final RandomSource random;
+
+    /**
+     * Constructs this probability distribution.
+     */
+    protected AbstractLongWeightProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    protected AbstractLongWeightProbabilityDistribution(Random random) {
+        this(RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    protected AbstractLongWeightProbabilityDistribution(RandomSource random) {
+        this.random =
+                Objects.requireNonNull(random,
+                                       "The random source is null.");
+    }
+
+    /**
+     * Returns {@code true} if this probability distribution is empty. Otherwise
+     * {@code false} is returned.
+     *
+     * @return {@code true} if this probability distribution is empty.
+     */
+    public abstract boolean isEmpty();
+
+    /**
+     * Returns the number of elements in this probability distribution.
+     *
+     * @return the size of this probability distribution.
+     */
+    public abstract int size();
+
+    /**
+     * Adds the element {@code element} to this probability distribution, and
+     * assigns {@code weight} as its weight. If the element is already present,
+     * {@code weight} is added to its current weight.
+     *
+     * @param element the element to add.
+     * @param weight  the weight of the new element.
+     *
+     * @return {@code true} only if the input element did not reside in this
+     *         structure and was successfully added.
+     */
+    public abstract boolean addElement(E element, long weight);
+
+    /**
+     * Returns the weight of the element {@code element}, or zero if it is not
+     * present in this probability distribution.
+     *
+     * @param element the element to query.
+     * @return the weight of the element.
+     */
+    public abstract long getWeight(E element);
+
+    /**
+     * Sets the weight of the element {@code element} to {@code weight}.
+     *
+     * @param element the element whose weight to set.
+     * @param weight  the new weight.
+     * @return {@code true} if the element was present in this probability
+     *         distribution; {@code false} otherwise.
+     */
+    public abstract boolean setWeight(E element, long weight);
+
+    /**
+     * Returns a randomly chosen element from this probability distribution
+     * taking the weights into account.
+     *
+     * @return a randomly chosen element.
+     */
+    public abstract E sampleElement();
+
+    /**
+     * Samples {@code count} elements independently and stores them in
+     * {@code out[0], ..., out[count - 1]}. This is equivalent to calling
+     * {@link #sampleElement()} {@code count} times.
+     *
+     * @param count the number of elements to sample.
+     * @param out   the array to which to store the sampled elements.
+     */
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+
+        if (count == 0) {
+            return;
+        }
+
+        checkNotEmpty(size());
+
+        for (int i = 0; i < count; ++i) {
+            out[i] = sampleElement();
+        }
+    }
+
+    /**
+     * Returns {@code true} if this probability distribution contains the
+     * element {@code element}.
+     *
+     * @param element the element to query.
+     * @return {@code true} if the input element is in this probability
+     *         distribution; {@code false} otherwise.
+     */
+    public abstract boolean contains(E element);
+
+    /**
+     * Removes the element {@code element} from this probability distribution.
+     *
+     * @param element the element to remove.
+     * @return {@code true} if the element was present in this probability
+     *         distribution and was successfully removed.
+     */
+    public abstract boolean removeElement(E element);
+
+    /**
+     * Removes all elements from this probability distribution.
+     */
+    public abstract void clear();
+
+    /**
+     * Returns the exact sum of the weights of all elements in this
+     * probability distribution.
+     *
+     * @return the total weight.
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Returns a random value uniformly distributed over
+     * <tt>[0, totalWeight)</tt>. The values of {@code nextLong} that would
+     * favor the small results are rejected, so that the result is unbiased
+     * for any total weight.
+     *
+     * @return a random value.
+     */
+    protected long nextRandomValue() {
+        long bound = totalWeight;
+        long mask = bound - 1L;
+        long value = random.nextLong();
+
+        if ((bound & mask) == 0L) {
+            // The bound is a power of two.
+            return value & mask;
+        }
+
+        for (long bits = value >>> 1;
+                bits + mask - (value = bits % bound) < 0L;
+                bits = random.nextLong() >>> 1) {
+            // The last bound-sized block of [0, 2^63) is incomplete. Retry.
+        }
+
+        return value;
+    }
+
+    /**
+     * Checks that the element weight is valid, that is, positive.
+     *
+     * @param weight the weight to validate.
+     */
+    protected void checkWeight(long weight) {
+        if (weight <= 0L) {
+            throw new IllegalArgumentException(
+                    "The element weight must be positive. Received " + weight);
+        }
+    }
+
+    /**
+     * Checks that the total weight may be increased by {@code delta} without
+     * overflowing.
+     *
+     * @param delta the amount to add to the total weight.
+     */
+    protected void checkTotalWeightIncrease(long delta) {
+        if (delta > Long.MAX_VALUE - totalWeight) {
+            throw new IllegalArgumentException(
+                    "The total weight " + totalWeight + " cannot be " +
+                    "increased by " + delta + " without overflowing.");
+        }
+    }
+
+    /**
+     * Checks that the number of elements to sample is not negative and fits
+     * in the output buffer.
+     *
+     * @param count        the number of elements to sample.
+     * @param bufferLength the length of the output buffer.
+     */
+    protected static void checkSampleCount(int count, int bufferLength) {
+        AbstractProbabilityDistribution.checkSampleCount(count, bufferLength);
+    }
+
+    /**
+     * Checks that this probability distribution contains at least one element.
+     *
+     * @param size the number of elements in this probability distribution.
+     */
+    protected void checkNotEmpty(int size) {
+        AbstractProbabilityDistribution.validateNotEmpty(size);
+    }
+}
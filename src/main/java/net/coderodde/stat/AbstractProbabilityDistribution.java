@@ -1,5 +1,10 @@
 package net.coderodde.stat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 
@@ -14,26 +19,49 @@ import java.util.Random;
  * chance of obtaining <tt>b</tt>, and 60 percent chance of obtaining 
  * <tt>c</tt>.
  * 
+ * <p><b>Breaking change in 1.7:</b> the protected field {@link #random} is a
+ * {@link RandomSource} instead of a {@link Random}. A subclass calling any
+ * other method than {@code nextDouble()}, {@code nextInt(int)} or
+ * {@code nextLong()} on it, such as {@code nextGaussian()}, no longer
+ * compiles. Such a subclass should keep a reference to its own
+ * {@code Random} and pass it to
+ * {@link #AbstractProbabilityDistribution(Random)} as well. The constructors
+ * taking a {@code Random} work as before.
+ * 
  * @author Rodion "rodde" Efremov
- * @version 1.61 (Oct 10, 2016)
+ * @version 1.7 (Oct 18, 2026)
  */
 public abstract class AbstractProbabilityDistribution<E> {
 
     /**
-     * The sum of all weights.
+     * The sum of all weights. Subclasses either assign this field directly
+     * from an exactly recomputed value, or maintain it incrementally via
+     * {@link #addToTotalWeight(double)} and {@link #setTotalWeight(double)}.
+     */
+    protected double totalWeight;
+
+    /**
+     * The running sum behind {@link #totalWeight} when it is maintained
+     * incrementally.
+     */
+    private double totalWeightSum;
+
+    /**
+     * The low-order bits lost by {@link #totalWeightSum} so far.
      */
-    protected double totalWeight; 
+    private double totalWeightCompensation;
 
     /**
-     * The random number generator of this probability distribution.
+     * The random source of this probability distribution. Before version 1.7,
+     * this field was a {@link Random}.
      */
-    protected final Random random;
+    protected final RandomSource random;
 
     /**
      * Constructs this probability distribution.
      */
     protected AbstractProbabilityDistribution() {
-        this(new Random());
+        this(RandomSources.threadLocal());
     }
 
     /**
@@ -43,9 +71,18 @@ public abstract class AbstractProbabilityDistribution<E> {
      * @param random the random number generator.
      */
     protected AbstractProbabilityDistribution(Random random) {
+        this(RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     * 
+     * @param random the random source.
+     */
+    protected AbstractProbabilityDistribution(RandomSource random) {
         this.random = 
                 Objects.requireNonNull(random, 
-                                       "The random number generator is null.");
+                                       "The random source is null.");
     }
 
     /**
@@ -75,6 +112,132 @@ public abstract class AbstractProbabilityDistribution<E> {
      */
     public abstract boolean addElement(E element, double weight);
 
+    /**
+     * Adds all the elements of the map {@code weights} with their respective
+     * weights, as if by calling {@link #addElement(Object, double)} for each
+     * map entry. All the weights are validated before this probability
+     * distribution is modified.
+     *
+     * @param weights the map mapping each element to add to its weight.
+     */
+    @SuppressWarnings("unchecked")
+    public void addAll(Map<? extends E, Double> weights) {
+        E[] elementArray = (E[]) new Object[weights.size()];
+        double[] weightArray = new double[weights.size()];
+        int index = 0;
+
+        for (Map.Entry<? extends E, Double> entry : weights.entrySet()) {
+            double weight = entry.getValue();
+            checkWeight(weight);
+            elementArray[index] = entry.getKey();
+            weightArray[index] = weight;
+            ++index;
+        }
+
+        addAllValidated(elementArray, weightArray);
+    }
+
+    /**
+     * Adds each element {@code elements[i]} with the weight
+     * {@code weights[i]}, as if by calling
+     * {@link #addElement(Object, double)} for each index in order. All the
+     * weights are validated before this probability distribution is modified.
+     *
+     * @param elements the elements to add.
+     * @param weights  the weights of the elements.
+     */
+    public void addAll(E[] elements, double[] weights) {
+        if (elements.length != weights.length) {
+            throw new IllegalArgumentException(
+                    "The number of elements (" + elements.length + ") does " +
+                    "not match the number of weights (" + weights.length +
+                    ").");
+        }
+
+        for (double weight : weights) {
+            checkWeight(weight);
+        }
+
+        addAllValidated(elements, weights);
+    }
+
+    /**
+     * Adds each element {@code elements[i]} with the weight
+     * {@code weights[i]}. The arrays have equal lengths, and all the weights
+     * are already validated. Implementations must not modify the arrays.
+     *
+     * <p>The default implementation calls
+     * {@link #addElement(Object, double)} for each element. Implementations
+     * are encouraged to build their internal structures in linear time
+     * instead.
+     *
+     * @param elements the elements to add.
+     * @param weights  the weights of the elements.
+     */
+    protected void addAllValidated(E[] elements, double[] weights) {
+        for (int i = 0; i < elements.length; ++i) {
+            addElement(elements[i], weights[i]);
+        }
+    }
+
+    /**
+     * Returns the weight of the element {@code element}, or <tt>0.0</tt> if
+     * the element is not in this probability distribution.
+     *
+     * <p>The default implementation looks the element up in {@link #toMap()}
+     * and runs in linear time.
+     *
+     * @param element the element to query.
+     * @return the weight of the element.
+     */
+    public double getWeight(E element) {
+        Double weight = toMap().get(element);
+        return weight == null ? 0.0 : weight;
+    }
+
+    /**
+     * Assigns the weight {@code weight} to the element {@code element} if it is
+     * in this probability distribution.
+     *
+     * <p>The default implementation removes the element and adds it back with
+     * the new weight.
+     *
+     * @param element the element whose weight to set.
+     * @param weight  the new weight of the element.
+     * @return {@code true} if the element was present and its weight was set;
+     *         {@code false} if the element was not present.
+     */
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+
+        if (!removeElement(element)) {
+            return false;
+        }
+
+        addElement(element, weight);
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} to the weight of the element {@code element} if it is
+     * in this probability distribution. The resulting weight must be valid;
+     * in order to drop an element, use {@link #removeElement(Object)}.
+     *
+     * @param element the element whose weight to adjust.
+     * @param delta   the value to add to the weight. May be negative.
+     * @return {@code true} if the element was present and its weight was
+     *         adjusted; {@code false} if the element was not present.
+     */
+    public boolean adjustWeight(E element, double delta) {
+        if (!contains(element)) {
+            return false;
+        }
+
+        double weight = getWeight(element) + delta;
+        checkWeight(weight);
+        return setWeight(element, weight);
+    }
+
     /**
      * Returns a randomly chosen element from this probability distribution 
      * taking the weights into account.
@@ -83,6 +246,143 @@ public abstract class AbstractProbabilityDistribution<E> {
      */
     public abstract E sampleElement();
 
+    /**
+     * Samples {@code count} elements independently and stores them in
+     * {@code out[0], ..., out[count - 1]}. This is equivalent to calling
+     * {@link #sampleElement()} {@code count} times, but implementations may
+     * amortize the per-call overhead over the entire batch.
+     * 
+     * @param count the number of elements to sample.
+     * @param out   the array to which to store the sampled elements.
+     */
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty(size());
+        
+        for (int i = 0; i < count; ++i) {
+            out[i] = sampleElement();
+        }
+    }
+    
+    /**
+     * Samples {@code count} elements independently and appends them to the 
+     * list {@code out}.
+     * 
+     * @param count the number of elements to sample.
+     * @param out   the list to which to append the sampled elements.
+     */
+    @SuppressWarnings("unchecked")
+    public void sampleElements(int count, List<? super E> out) {
+        E[] buffer = (E[]) new Object[count];
+        sampleElements(count, buffer);
+        out.addAll(Arrays.asList(buffer));
+    }
+
+    /**
+     * Returns the number of times each element would be chosen in
+     * {@code draws} independent calls to {@link #sampleElement()}. The counts
+     * follow the multinomial distribution and are generated by conditional
+     * binomial sampling: walking the elements in storage order, each element
+     * receives a binomial share of the draws left over by its predecessors.
+     * Hence the running time depends on the number of elements, not on the
+     * number of draws.
+     *
+     * @param draws the number of draws.
+     * @return a map mapping each element chosen at least once to the number of
+     *         times it was chosen, in storage order.
+     */
+    public Map<E, Long> sampleCounts(long draws) {
+        if (draws < 0L) {
+            throw new IllegalArgumentException(
+                    "The number of draws is negative: " + draws);
+        }
+
+        Map<E, Double> weights = toMap();
+        Map<E, Long> counts = new LinkedHashMap<>();
+
+        if (draws == 0L) {
+            return counts;
+        }
+
+        checkNotEmpty(weights.size());
+
+        // Sum the weights afresh so that the last element gets probability
+        // exactly one regardless of the round-off errors in 'totalWeight'.
+        double remainingWeight = 0.0;
+
+        for (double weight : weights.values()) {
+            remainingWeight += weight;
+        }
+
+        long remainingDraws = draws;
+        int remainingElements = weights.size();
+
+        for (Map.Entry<E, Double> entry : weights.entrySet()) {
+            double weight = entry.getValue();
+            long count = --remainingElements == 0 ?
+                    remainingDraws :
+                    BinomialSampler.sample(random,
+                                           remainingDraws,
+                                           weight / remainingWeight);
+
+            if (count > 0L) {
+                counts.put(entry.getKey(), count);
+                remainingDraws -= count;
+
+                if (remainingDraws == 0L) {
+                    break;
+                }
+            }
+
+            remainingWeight -= weight;
+        }
+
+        return counts;
+    }
+
+    /**
+     * Samples {@code k} distinct elements without replacement. The returned
+     * list has the same distribution as the sequence obtained by repeatedly
+     * sampling an element and removing it, yet this probability distribution
+     * is not modified. If {@code k} exceeds the size of this distribution, all
+     * its elements are returned.
+     *
+     * <p>The default implementation assigns to each element of weight
+     * <tt>w</tt> an exponential key <tt>-ln(U) / w</tt> and selects the
+     * {@code k} smallest keys (Efraimidis and Spirakis).
+     *
+     * @param k the number of distinct elements to sample.
+     * @return the list of sampled elements in the order of sampling.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> sampleDistinct(int k) {
+        checkDistinctCount(k);
+        Map<E, Double> map = toMap();
+        Object[] elements = new Object[map.size()];
+        double[] weights = new double[map.size()];
+        int index = 0;
+
+        for (Map.Entry<E, Double> entry : map.entrySet()) {
+            elements[index] = entry.getKey();
+            weights[index] = entry.getValue();
+            ++index;
+        }
+
+        int[] selected = selectByExponentialKeys(weights, weights.length, k);
+        List<E> result = new ArrayList<>(selected.length);
+
+        for (int i : selected) {
+            result.add((E) elements[i]);
+        }
+
+        return result;
+    }
+
     /**
      * Returns {@code true} if this probability distribution contains the
      * element {@code element}.
@@ -107,6 +407,72 @@ public abstract class AbstractProbabilityDistribution<E> {
      */
     public abstract void clear();
 
+    /**
+     * Returns a map mapping each element in this probability distribution to
+     * its weight. The iteration order of the returned map follows the order in
+     * which this probability distribution stores its elements. The returned 
+     * map is a copy, so modifying it does not affect this distribution.
+     * 
+     * <p>The default implementation throws an 
+     * {@link UnsupportedOperationException}, so that subclasses written 
+     * before version 1.7 keep compiling. Such subclasses must override this 
+     * method before relying on the default implementations of 
+     * {@link #getWeight(Object)}, {@link #sampleCounts(long)} and 
+     * {@link #sampleDistinct(int)}, all of which call it. All subclasses in 
+     * this library override it.
+     * 
+     * @return a map from elements to their respective weights.
+     * @throws UnsupportedOperationException if the subclass does not support
+     *                                       enumerating its elements.
+     */
+    public Map<E, Double> toMap() {
+        throw new UnsupportedOperationException(
+                getClass().getName() + " does not implement toMap()");
+    }
+
+    /**
+     * Returns the sum of the weights of all elements in this probability
+     * distribution.
+     *
+     * @return the total weight.
+     */
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Adds {@code delta} to the total weight using Neumaier's compensated
+     * summation. Unlike with plain {@code +=}, whose error grows with the
+     * number of updates, the total stays accurate to a few units in the last
+     * place for all practical numbers of additions and removals.
+     * 
+     * @param delta the amount to add; negative for removals.
+     */
+    protected void addToTotalWeight(double delta) {
+        double sum = totalWeightSum + delta;
+
+        if (Math.abs(totalWeightSum) >= Math.abs(delta)) {
+            totalWeightCompensation += (totalWeightSum - sum) + delta;
+        } else {
+            totalWeightCompensation += (delta - sum) + totalWeightSum;
+        }
+
+        totalWeightSum = sum;
+        totalWeight = sum + totalWeightCompensation;
+    }
+
+    /**
+     * Sets the total weight and discards the compensation accumulated by 
+     * {@link #addToTotalWeight(double)}.
+     * 
+     * @param weight the new total weight.
+     */
+    protected void setTotalWeight(double weight) {
+        totalWeightSum = weight;
+        totalWeightCompensation = 0.0;
+        totalWeight = weight;
+    }
+
     /**
      * Checks that the element weight is valid. The weight must not be a 
      * <tt>NaN</tt> and must be positive, but not a positive infinity.
@@ -114,6 +480,16 @@ public abstract class AbstractProbabilityDistribution<E> {
      * @param weight the weight to validate.
      */
     protected void checkWeight(double weight) {
+        validateWeight(weight);
+    }
+
+    /**
+     * Implements {@link #checkWeight(double)} for the classes that validate
+     * the weights outside of a probability distribution.
+     *
+     * @param weight the weight to validate.
+     */
+    static void validateWeight(double weight) {
         if (Double.isNaN(weight)) {
             throw new IllegalArgumentException("The element weight is NaN.");
         }
@@ -130,10 +506,202 @@ public abstract class AbstractProbabilityDistribution<E> {
         }
     }
 
+    /**
+     * Returns an array of {@code count} independent random values, each 
+     * uniformly distributed over <tt>[0, totalWeight)</tt>, in ascending 
+     * order. The values are generated directly in sorted order from the 
+     * partial sums of <tt>count + 1</tt> exponential spacings, so no sorting 
+     * is involved.
+     * 
+     * @param count the number of random values to generate.
+     * @return the random values in ascending order.
+     */
+    protected double[] createSortedRandomValues(int count) {
+        double[] values = new double[count];
+        double sum = 0.0;
+        
+        for (int i = 0; i < count; ++i) {
+            sum -= Math.log(1.0 - random.nextDouble());
+            values[i] = sum;
+        }
+        
+        sum -= Math.log(1.0 - random.nextDouble());
+        double scale = totalWeight / sum;
+        
+        for (int i = 0; i < count; ++i) {
+            values[i] *= scale;
+        }
+        
+        return values;
+    }
+    
+    /**
+     * Shuffles the first {@code count} components of the array {@code array}
+     * uniformly at random.
+     * 
+     * @param array the array to shuffle.
+     * @param count the length of the prefix to shuffle.
+     */
+    protected void shuffle(E[] array, int count) {
+        for (int i = count - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            E tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+    
+    /**
+     * Selects {@code min(k, n)} indices out of <tt>0, ..., n - 1</tt> without
+     * replacement, with the index {@code i} having the weight
+     * {@code weights[i]}. Each index receives the exponential key
+     * <tt>-ln(U) / weights[i]</tt>, and the {@code k} smallest keys are
+     * maintained in a bounded binary max-heap, so that this method runs in
+     * <tt>O(n log k)</tt> time.
+     *
+     * @param weights the weights of the indices.
+     * @param n       the number of indices.
+     * @param k       the number of indices to select.
+     * @return the selected indices in ascending order of their keys, which is
+     *         the order of sequential sampling without replacement.
+     */
+    protected int[] selectByExponentialKeys(double[] weights, int n, int k) {
+        int capacity = Math.min(k, n);
+        double[] heapKeys = new double[capacity];
+        int[] heapIndices = new int[capacity];
+        int heapSize = 0;
+
+        if (capacity == 0) {
+            return heapIndices;
+        }
+
+        for (int i = 0; i < n; ++i) {
+            double key = -Math.log(1.0 - random.nextDouble()) / weights[i];
+
+            if (heapSize < capacity) {
+                // Sift up.
+                int child = heapSize++;
+
+                while (child > 0) {
+                    int parent = (child - 1) >> 1;
+
+                    if (heapKeys[parent] >= key) {
+                        break;
+                    }
+
+                    heapKeys[child] = heapKeys[parent];
+                    heapIndices[child] = heapIndices[parent];
+                    child = parent;
+                }
+
+                heapKeys[child] = key;
+                heapIndices[child] = i;
+            } else if (key < heapKeys[0]) {
+                siftDown(heapKeys, heapIndices, heapSize, key, i);
+            }
+        }
+
+        // Heap sort the keys into ascending order.
+        for (int last = heapSize - 1; last > 0; --last) {
+            double key = heapKeys[last];
+            int index = heapIndices[last];
+            heapKeys[last] = heapKeys[0];
+            heapIndices[last] = heapIndices[0];
+            siftDown(heapKeys, heapIndices, last, key, index);
+        }
+
+        return heapIndices;
+    }
+
+    /**
+     * Places the key {@code key} with the index {@code index} to the root of
+     * the max-heap and sifts it down.
+     *
+     * @param heapKeys    the keys of the heap.
+     * @param heapIndices the indices of the heap.
+     * @param heapSize    the size of the heap.
+     * @param key         the key to place.
+     * @param index       the index to place.
+     */
+    private static void siftDown(double[] heapKeys,
+                                 int[] heapIndices,
+                                 int heapSize,
+                                 double key,
+                                 int index) {
+        int parent = 0;
+
+        while (true) {
+            int child = 2 * parent + 1;
+
+            if (child >= heapSize) {
+                break;
+            }
+
+            if (child + 1 < heapSize && heapKeys[child + 1] > heapKeys[child]) {
+                ++child;
+            }
+
+            if (heapKeys[child] <= key) {
+                break;
+            }
+
+            heapKeys[parent] = heapKeys[child];
+            heapIndices[parent] = heapIndices[child];
+            parent = child;
+        }
+
+        heapKeys[parent] = key;
+        heapIndices[parent] = index;
+    }
+
+    /**
+     * Checks that the number of distinct elements to sample is not negative.
+     *
+     * @param k the number of distinct elements to sample.
+     */
+    protected static void checkDistinctCount(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException(
+                    "The number of distinct elements is negative: " + k);
+        }
+    }
+
+    /**
+     * Checks that the number of elements to sample is not negative and fits
+     * in the output buffer.
+     * 
+     * @param count        the number of elements to sample.
+     * @param bufferLength the length of the output buffer.
+     */
+    protected static void checkSampleCount(int count, int bufferLength) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                    "The sample count is negative: " + count);
+        }
+        
+        if (count > bufferLength) {
+            throw new IllegalArgumentException(
+                    "The sample count " + count + " exceeds the buffer " +
+                    "length " + bufferLength);
+        }
+    }
+
     /**
      * Checks that this probability distribution contains at least one element.
+     *
+     * @param size the number of elements in this probability distribution.
      */
     protected void checkNotEmpty(int size) {
+        validateNotEmpty(size);
+    }
+
+    /**
+     * Implements {@link #checkNotEmpty(int)} for the other families of
+     * probability distributions.
+     *
+     * @param size the number of elements in the probability distribution.
+     */
+    static void validateNotEmpty(int size) {
         if (size == 0) {
             throw new IllegalStateException(
                     "This probability distribution is empty.");
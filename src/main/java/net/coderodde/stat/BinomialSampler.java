@@ -0,0 +1,234 @@
+package net.coderodde.stat;
+
+/**
+ * This class implements sampling from binomial distributions in time that does
+ * not depend on the number of trials. Whenever the mean is small, the variate
+ * is generated by sequential inversion in <tt>O(np)</tt> expected time.
+ * Otherwise, the BTRD algorithm of Hörmann ("The generation of binomial random
+ * variates", 1993) is used, which runs in constant expected time.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+final class BinomialSampler {
+
+    /**
+     * The smallest mean for which BTRD is used.
+     */
+    private static final double BTRD_MINIMUM_MEAN = 10.0;
+
+    /**
+     * The correction terms of the Stirling approximation of
+     * <tt>log(k!)</tt> for <tt>k = 0, ..., 9</tt>.
+     */
+    private static final double[] STIRLING_CORRECTIONS = {
+        0.08106146679532726,
+        0.04134069595540929,
+        0.02767792568499834,
+        0.02079067210376509,
+        0.01664469118982119,
+        0.01387612882307075,
+        0.01189670994589177,
+        0.01041126526197209,
+        0.009255462182712733,
+        0.008330563433362871,
+    };
+
+    private BinomialSampler() {}
+
+    /**
+     * Returns the number of successes in {@code trials} independent trials,
+     * each succeeding with probability {@code probability}.
+     *
+     * @param random      the random number generator.
+     * @param trials      the number of trials.
+     * @param probability the success probability of a trial.
+     * @return the number of successes.
+     */
+    static long sample(RandomSource random, long trials, double probability) {
+        if (trials == 0L || probability <= 0.0) {
+            return 0L;
+        }
+
+        if (probability >= 1.0) {
+            return trials;
+        }
+
+        if (probability > 0.5) {
+            return trials - sample(random, trials, 1.0 - probability);
+        }
+
+        if (trials * probability < BTRD_MINIMUM_MEAN) {
+            return sampleByInversion(random, trials, probability);
+        }
+
+        return sampleByBtrd(random, trials, probability);
+    }
+
+    /**
+     * Samples by sequential inversion in <tt>O(np)</tt> expected time. Visible
+     * within the package so that the tests may compare both methods on the
+     * same parameters.
+     *
+     * @param random      the random number generator.
+     * @param trials      the positive number of trials.
+     * @param probability the success probability within <tt>(0, 0.5]</tt>.
+     * @return the number of successes.
+     */
+    static long sampleByInversion(RandomSource random,
+                                  long trials,
+                                  double probability) {
+        double q = 1.0 - probability;
+        double s = probability / q;
+        double firstProbability = Math.exp(trials * Math.log1p(-probability));
+        double mean = trials * probability;
+
+        // Bound the search so that a value of 'u' extremely close to one
+        // cannot make it run for long.
+        double bound = Math.min(trials, mean + 10.0 * Math.sqrt(mean * q + 1));
+
+        while (true) {
+            double u = random.nextDouble();
+            double px = firstProbability;
+            long x = 0L;
+
+            while (u > px) {
+                u -= px;
+                ++x;
+
+                if (x > bound) {
+                    break;
+                }
+
+                px *= ((trials - x + 1) * s) / x;
+            }
+
+            if (x <= bound) {
+                return x;
+            }
+        }
+    }
+
+    /**
+     * Samples by BTRD in constant expected time.
+     *
+     * @param random      the random number generator.
+     * @param trials      the number of trials, at least
+     *                    <tt>BTRD_MINIMUM_MEAN / probability</tt>.
+     * @param probability the success probability within <tt>(0, 0.5]</tt>.
+     * @return the number of successes.
+     */
+    static long sampleByBtrd(RandomSource random,
+                             long trials,
+                             double probability) {
+        double n = trials;
+        double p = probability;
+        double m = Math.floor((n + 1.0) * p);
+        double r = p / (1.0 - p);
+        double nr = (n + 1.0) * r;
+        double npq = n * p * (1.0 - p);
+        double sqrtNpq = Math.sqrt(npq);
+        double b = 1.15 + 2.53 * sqrtNpq;
+        double a = -0.0873 + 0.0248 * b + 0.01 * p;
+        double c = n * p + 0.5;
+        double alpha = (2.83 + 5.1 / b) * sqrtNpq;
+        double vr = 0.92 - 4.2 / b;
+        double urvr = 0.86 * vr;
+
+        while (true) {
+            double v = random.nextDouble();
+            double u;
+
+            if (v <= urvr) {
+                u = v / vr - 0.43;
+                return (long) Math.floor((2.0 * a / (0.5 - Math.abs(u)) + b)
+                                         * u + c);
+            }
+
+            if (v >= vr) {
+                u = random.nextDouble() - 0.5;
+            } else {
+                u = v / vr - 0.93;
+                u = Math.signum(u) * 0.5 - u;
+                v = random.nextDouble() * vr;
+            }
+
+            double us = 0.5 - Math.abs(u);
+            double k = Math.floor((2.0 * a / us + b) * u + c);
+
+            if (k < 0.0 || k > n) {
+                continue;
+            }
+
+            v = v * alpha / (a / (us * us) + b);
+            double km = Math.abs(k - m);
+
+            if (km <= 15.0) {
+                // Evaluate the probability ratio recursively.
+                double f = 1.0;
+
+                if (m < k) {
+                    for (double i = m + 1.0; i <= k; ++i) {
+                        f *= nr / i - r;
+                    }
+                } else if (m > k) {
+                    for (double i = k + 1.0; i <= m; ++i) {
+                        v *= nr / i - r;
+                    }
+                }
+
+                if (v <= f) {
+                    return (long) k;
+                }
+
+                continue;
+            }
+
+            // Squeeze using the normal approximation.
+            v = Math.log(v);
+            double rho = (km / npq) *
+                         (((km / 3.0 + 0.625) * km + 1.0 / 6.0) / npq + 0.5);
+            double t = -km * km / (2.0 * npq);
+
+            if (v < t - rho) {
+                return (long) k;
+            }
+
+            if (v > t + rho) {
+                continue;
+            }
+
+            // The final acceptance test via the Stirling approximation.
+            double nm = n - m + 1.0;
+            double h = (m + 0.5) * Math.log((m + 1.0) / (r * nm))
+                     + stirlingCorrection(m)
+                     + stirlingCorrection(n - m);
+            double nk = n - k + 1.0;
+
+            if (v <= h + (n + 1.0) * Math.log(nm / nk)
+                       + (k + 0.5) * Math.log(nk * r / (k + 1.0))
+                       - stirlingCorrection(k)
+                       - stirlingCorrection(n - k)) {
+                return (long) k;
+            }
+        }
+    }
+
+    /**
+     * Returns <tt>log(k!) - [(k + 0.5) log(k + 1) - (k + 1)
+     * + log(sqrt(2 pi))]</tt>, the error of the Stirling approximation.
+     *
+     * @param k the argument of the factorial.
+     * @return the correction term.
+     */
+    private static double stirlingCorrection(double k) {
+        if (k < STIRLING_CORRECTIONS.length) {
+            return STIRLING_CORRECTIONS[(int) k];
+        }
+
+        double kp1 = k + 1.0;
+        double kp1sq = kp1 * kp1;
+        return (1.0 / 12.0 - (1.0 / 360.0 - 1.0 / 1260.0 / kp1sq) / kp1sq)
+                / kp1;
+    }
+}
@@ -0,0 +1,36 @@
+package net.coderodde.stat;
+
+/**
+ * This interface defines the random numbers the probability distributions and
+ * samplers of this library consume. It decouples them from
+ * {@link java.util.Random}, whose seed is an atomic variable updated on every
+ * call. See {@link RandomSources} for the available implementations.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public interface RandomSource {
+
+    /**
+     * Returns a random number uniformly distributed over <tt>[0, 1)</tt>.
+     *
+     * @return a random double value.
+     */
+    double nextDouble();
+
+    /**
+     * Returns a random number uniformly distributed over
+     * <tt>[0, bound)</tt>.
+     *
+     * @param bound the exclusive upper bound. Must be positive.
+     * @return a random integer value.
+     */
+    int nextInt(int bound);
+
+    /**
+     * Returns a random number uniformly distributed over all long values.
+     *
+     * @return a random long value.
+     */
+    long nextLong();
+}
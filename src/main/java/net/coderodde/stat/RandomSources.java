@@ -0,0 +1,105 @@
+package net.coderodde.stat;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class provides the standard implementations of {@link RandomSource}:
+ *
+ * <ul>
+ * <li>{@link #threadLocal()} draws the numbers from
+ *     {@link ThreadLocalRandom}. It is thread-safe without any contention,
+ *     and is the default of all the probability distributions.</li>
+ * <li>{@link #splittable()} and {@link #splittable(long)} return a
+ *     {@link SplittableRandomSource}, the fastest option for a single thread,
+ *     and the one to use for reproducible results.</li>
+ * <li>{@link #of(Random)} adapts an existing {@link Random}.</li>
+ * </ul>
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public final class RandomSources {
+
+    /**
+     * Draws all the numbers from the {@link ThreadLocalRandom} of the calling
+     * thread.
+     */
+    private static final RandomSource THREAD_LOCAL = new RandomSource() {
+
+        @Override
+        public double nextDouble() {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            return ThreadLocalRandom.current().nextInt(bound);
+        }
+
+        @Override
+        public long nextLong() {
+            return ThreadLocalRandom.current().nextLong();
+        }
+    };
+
+    private RandomSources() {}
+
+    /**
+     * Returns a random source drawing the numbers from the
+     * {@link ThreadLocalRandom} of the calling thread.
+     *
+     * @return a thread-safe random source.
+     */
+    public static RandomSource threadLocal() {
+        return THREAD_LOCAL;
+    }
+
+    /**
+     * Returns a new splittable random source with an arbitrary seed.
+     *
+     * @return a new random source.
+     */
+    public static SplittableRandomSource splittable() {
+        return new SplittableRandomSource();
+    }
+
+    /**
+     * Returns a new splittable random source with the given seed.
+     *
+     * @param seed the initial seed.
+     * @return a new random source.
+     */
+    public static SplittableRandomSource splittable(long seed) {
+        return new SplittableRandomSource(seed);
+    }
+
+    /**
+     * Returns a random source drawing the numbers from {@code random}.
+     *
+     * @param random the random number generator to adapt.
+     * @return a random source.
+     */
+    public static RandomSource of(final Random random) {
+        Objects.requireNonNull(random, "The random number generator is null.");
+
+        return new RandomSource() {
+
+            @Override
+            public double nextDouble() {
+                return random.nextDouble();
+            }
+
+            @Override
+            public int nextInt(int bound) {
+                return random.nextInt(bound);
+            }
+
+            @Override
+            public long nextLong() {
+                return random.nextLong();
+            }
+        };
+    }
+}
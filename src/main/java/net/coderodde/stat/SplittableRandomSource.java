@@ -0,0 +1,143 @@
+package net.coderodde.stat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a fast, non-thread-safe random source relying on the
+ * SplitMix64 generator, the algorithm behind
+ * {@code java.util.SplittableRandom}. Generating a number takes a few
+ * arithmetic operations on a plain field. An instance must not be shared by
+ * threads; instead, each thread should use its own instance obtained via
+ * {@link #split()}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public final class SplittableRandomSource implements RandomSource {
+
+    /**
+     * The odd increment derived from the golden ratio.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The scale mapping the 53 high bits of a long to <tt>[0, 1)</tt>.
+     */
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /**
+     * Produces the seeds of the instances created without an explicit seed.
+     */
+    private static final AtomicLong DEFAULT_SEED_GENERATOR =
+            new AtomicLong(mix64(System.currentTimeMillis()) ^
+                           mix64(System.nanoTime()));
+
+    /**
+     * The current state of the generator.
+     */
+    private long seed;
+
+    /**
+     * The odd amount added to the state on each step.
+     */
+    private final long gamma;
+
+    /**
+     * Constructs a random source with a seed and a gamma derived from a
+     * shared seed generator. As with {@code java.util.SplittableRandom}, both
+     * are mixed, so that two instances constructed this way produce
+     * statistically independent sequences of numbers.
+     */
+    public SplittableRandomSource() {
+        long s = DEFAULT_SEED_GENERATOR.getAndAdd(2 * GOLDEN_GAMMA);
+        this.seed = mix64(s);
+        this.gamma = mixGamma(s + GOLDEN_GAMMA);
+    }
+
+    /**
+     * Constructs a random source with the given seed. Two random sources
+     * constructed with the same seed produce the same sequence of numbers.
+     *
+     * @param seed the initial seed.
+     */
+    public SplittableRandomSource(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SplittableRandomSource(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Returns a new random source that shares no mutable state with this one.
+     * The numbers produced by the two random sources are statistically
+     * independent, so the returned random source may be handed to another
+     * thread.
+     *
+     * @return a new random source.
+     */
+    public SplittableRandomSource split() {
+        return new SplittableRandomSource(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException(
+                    "The bound must be positive. Received " + bound);
+        }
+
+        int bits = (int) (nextLong() >>> 33);
+        int value = bits % bound;
+
+        // Reject the values from the incomplete last range of width 'bound'
+        // in order to avoid the modulo bias.
+        while (bits - value + (bound - 1) < 0) {
+            bits = (int) (nextLong() >>> 33);
+            value = bits % bound;
+        }
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derives an odd gamma with enough bit transitions from {@code z}.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,282 @@
+package net.coderodde.stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * This class implements a weighted reservoir sampler over a stream of elements
+ * of unknown, possibly unbounded, length. At any moment, the reservoir holds a
+ * weighted sample without replacement of size {@code capacity} (or less, if
+ * fewer elements were offered) of all the elements offered so far.
+ *
+ * <p>The sampler relies on the algorithm A-ExpJ of Efraimidis and Spirakis:
+ * once the reservoir is full, it draws the total weight to skip before the next
+ * insertion, so that the skipped elements cost no random numbers at all.
+ * Offering an element runs in <tt>O(1)</tt> time if skipped, and in
+ * <tt>O(log capacity)</tt> time if inserted. The expected number of insertions
+ * after offering <tt>n</tt> elements is <tt>O(capacity log(n / capacity))
+ * </tt>.
+ *
+ * <p>Each call to {@link #offer(Object, double)} is treated as a separate
+ * item, so an element offered several times may occupy several slots in the
+ * reservoir.
+ *
+ * @param <E> the actual type of the elements being sampled.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class WeightedReservoirSampler<E> {
+
+    /**
+     * The maximum number of elements in the reservoir.
+     */
+    private final int capacity;
+
+    /**
+     * The random source of this sampler.
+     */
+    private final RandomSource random;
+
+    /**
+     * The keys of the reservoir items organized as a binary min-heap. The key
+     * of an item is <tt>ln(U) / w</tt>, the logarithm of the key
+     * <tt>U^(1/w)</tt> of Efraimidis and Spirakis.
+     */
+    private final double[] keys;
+
+    /**
+     * The weights of the reservoir items, parallel to {@code keys}.
+     */
+    private final double[] weights;
+
+    /**
+     * The elements of the reservoir items, parallel to {@code keys}.
+     */
+    private final Object[] elements;
+
+    /**
+     * The number of items in the reservoir.
+     */
+    private int size;
+
+    /**
+     * The weight to skip before the next insertion. Meaningful only once the
+     * reservoir is full.
+     */
+    private double weightToSkip;
+
+    /**
+     * Constructs a sampler with a reservoir of the given capacity and a
+     * default random source.
+     *
+     * @param capacity the capacity of the reservoir.
+     */
+    public WeightedReservoirSampler(int capacity) {
+        this(capacity, RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs a sampler with a reservoir of the given capacity using the
+     * input random number generator.
+     *
+     * @param capacity the capacity of the reservoir.
+     * @param random   the random number generator.
+     */
+    public WeightedReservoirSampler(int capacity, Random random) {
+        this(capacity, RandomSources.of(random));
+    }
+
+    /**
+     * Constructs a sampler with a reservoir of the given capacity using the
+     * input random source.
+     *
+     * @param capacity the capacity of the reservoir.
+     * @param random   the random source.
+     */
+    public WeightedReservoirSampler(int capacity, RandomSource random) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "The reservoir capacity must be positive. Received " +
+                    capacity);
+        }
+
+        this.capacity = capacity;
+        this.random =
+                Objects.requireNonNull(random, "The random source is null.");
+        this.keys = new double[capacity];
+        this.weights = new double[capacity];
+        this.elements = new Object[capacity];
+    }
+
+    /**
+     * Offers the element {@code element} with the weight {@code weight} to
+     * this sampler.
+     *
+     * @param element the offered element.
+     * @param weight  the weight of the element.
+     * @return {@code true} if the element entered the reservoir.
+     */
+    public boolean offer(E element, double weight) {
+        AbstractProbabilityDistribution.validateWeight(weight);
+
+        if (size < capacity) {
+            siftUp(size++, logUniform() / weight, weight, element);
+
+            if (size == capacity) {
+                drawWeightToSkip();
+            }
+
+            return true;
+        }
+
+        weightToSkip -= weight;
+
+        if (weightToSkip > 0.0) {
+            return false;
+        }
+
+        // The new key is uniform over the part of the key range above the
+        // current threshold.
+        double threshold = Math.exp(keys[0] * weight);
+        double u = threshold + (1.0 - threshold) * random.nextDouble();
+        siftDown(Math.log(u) / weight, weight, element);
+        drawWeightToSkip();
+        return true;
+    }
+
+    /**
+     * Returns the elements currently in the reservoir.
+     *
+     * @return a list of the elements in the reservoir.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> snapshot() {
+        List<E> result = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            result.add((E) elements[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds all the elements in the reservoir with their offered weights to the
+     * probability distribution {@code distribution}.
+     *
+     * @param <D>          the type of the target probability distribution.
+     * @param distribution the target probability distribution.
+     * @return {@code distribution}.
+     */
+    @SuppressWarnings("unchecked")
+    public <D extends AbstractProbabilityDistribution<E>>
+        D toDistribution(D distribution) {
+        for (int i = 0; i < size; ++i) {
+            distribution.addElement((E) elements[i], weights[i]);
+        }
+
+        return distribution;
+    }
+
+    /**
+     * Returns the number of elements in the reservoir.
+     *
+     * @return the size of the reservoir.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the capacity of the reservoir.
+     *
+     * @return the capacity of the reservoir.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Empties the reservoir, so that this sampler starts over.
+     */
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Draws the total weight to skip given the current minimum key.
+     */
+    private void drawWeightToSkip() {
+        weightToSkip = logUniform() / keys[0];
+    }
+
+    /**
+     * Returns <tt>ln(U)</tt> for <tt>U</tt> uniform over <tt>(0, 1]</tt>.
+     *
+     * @return a non-positive random number.
+     */
+    private double logUniform() {
+        return Math.log(1.0 - random.nextDouble());
+    }
+
+    private void siftUp(int index, double key, double weight, Object element) {
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+
+            if (keys[parent] <= key) {
+                break;
+            }
+
+            move(parent, index);
+            index = parent;
+        }
+
+        set(index, key, weight, element);
+    }
+
+    /**
+     * Replaces the minimum item with the given item and restores the heap
+     * order.
+     */
+    private void siftDown(double key, double weight, Object element) {
+        int index = 0;
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                ++child;
+            }
+
+            if (keys[child] >= key) {
+                break;
+            }
+
+            move(child, index);
+            index = child;
+        }
+
+        set(index, key, weight, element);
+    }
+
+    private void move(int source, int target) {
+        keys[target] = keys[source];
+        weights[target] = weights[source];
+        elements[target] = elements[source];
+    }
+
+    private void set(int index, double key, double weight, Object element) {
+        keys[index] = key;
+        weights[index] = weight;
+        elements[index] = element;
+    }
+}
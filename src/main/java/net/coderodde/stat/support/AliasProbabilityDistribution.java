@@ -0,0 +1,415 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution relying on the alias method
+ * of Walker, as improved by Vose. Once the alias table is built, sampling an
+ * element runs in constant time. The running times are as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized constant time</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt> </td>
+ *     <td><tt>O(1)</tt>, or <tt>O(n)</tt> right after a mutation,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(1)</tt>.</td></tr>
+ * </table>
+ *
+ * The alias table is rebuilt lazily: any mutation only marks the table as
+ * stale, and the next call to {@link #sampleElement()} rebuilds it in linear
+ * time. Thus, a burst of mutations costs a single rebuild. This probability
+ * distribution is best used whenever the number of queries greatly exceeds the
+ * number of modifications.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class AliasProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default capacity of the internal arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Maps each element to its index in the internal arrays.
+     */
+    private Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * Stores the elements. Only the first {@code size} components are used.
+     */
+    private Object[] elements = new Object[DEFAULT_CAPACITY];
+
+    /**
+     * Stores the weights of the elements.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY];
+
+    /**
+     * {@code probabilities[i]} is the probability of choosing the element
+     * {@code elements[i]} once the column {@code i} is chosen.
+     */
+    private double[] probabilities = new double[DEFAULT_CAPACITY];
+
+    /**
+     * {@code aliases[i]} is the index of the element to return whenever the
+     * element {@code elements[i]} is rejected in the column {@code i}.
+     */
+    private int[] aliases = new int[DEFAULT_CAPACITY];
+
+    /**
+     * The number of elements in this probability distribution.
+     */
+    private int size;
+
+    /**
+     * Indicates whether the alias table must be rebuilt before sampling.
+     */
+    private boolean dirty;
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator.
+     */
+    public AliasProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    public AliasProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public AliasProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution containing all the elements of
+     * {@code distribution} with the same weights.
+     *
+     * @param distribution the distribution to copy.
+     */
+    public AliasProbabilityDistribution(
+            AbstractProbabilityDistribution<E> distribution) {
+        this(distribution, RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution containing all the elements of
+     * {@code distribution} with the same weights, using the given random
+     * number generator.
+     *
+     * @param distribution the distribution to copy.
+     * @param random       the random number generator.
+     */
+    public AliasProbabilityDistribution(
+            AbstractProbabilityDistribution<E> distribution,
+            Random random) {
+        this(distribution, RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution containing all the elements of
+     * {@code distribution} with the same weights, using the given random
+     * source.
+     *
+     * @param distribution the distribution to copy.
+     * @param random       the random source.
+     */
+    public AliasProbabilityDistribution(
+            AbstractProbabilityDistribution<E> distribution,
+            RandomSource random) {
+        super(random);
+
+        addAll(distribution.toMap());
+        rebuild();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        Integer index = map.get(element);
+
+        if (index == null) {
+            ensureCapacity(size + 1);
+            map.put(element, size);
+            elements[size] = element;
+            weights[size] = weight;
+            ++size;
+            addToTotalWeight(weight);
+        } else {
+            // Account for the rounded sum actually stored.
+            addToTotalWeight(-weights[index]);
+            weights[index] += weight;
+            addToTotalWeight(weights[index]);
+        }
+
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation presizes the internal arrays and the map before
+     * adding the elements. The alias table is rebuilt once, on the next
+     * sampling.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        map = HashMaps.withCapacity(map, size + elements.length);
+        ensureCapacity(size + elements.length);
+        super.addAllValidated(elements, weights);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Integer index = map.get(element);
+        return index == null ? 0.0 : weights[index];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation runs in constant time. The alias table is rebuilt
+     * on the next sampling.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Integer index = map.get(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        addToTotalWeight(weight);
+        addToTotalWeight(-weights[index]);
+        weights[index] = weight;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E sampleElement() {
+        checkNotEmpty(size);
+
+        if (dirty) {
+            rebuild();
+        }
+
+        double value = random.nextDouble() * size;
+        // The product may round up to 'size' itself.
+        int index = Math.min((int) value, size - 1);
+
+        if (value - index < probabilities[index]) {
+            return (E) elements[index];
+        }
+
+        return (E) elements[aliases[index]];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeElement(E element) {
+        Integer index = map.remove(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        addToTotalWeight(-weights[index]);
+        --size;
+
+        if (index != size) {
+            // Move the last element to the hole.
+            elements[index] = elements[size];
+            weights[index] = weights[size];
+            map.put((E) elements[index], index);
+        }
+
+        elements[size] = null;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        setTotalWeight(0.0);
+        dirty = false;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * size);
+
+        for (int i = 0; i < size; ++i) {
+            result.put((E) elements[i], weights[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Rebuilds the alias table in linear time using the algorithm of Vose.
+     * There is no need to call this method explicitly, yet it allows moving
+     * the rebuild cost away from the next call to {@link #sampleElement()}.
+     */
+    public void rebuild() {
+        // Re-summing the weights discards any round-off error the incremental
+        // updates have accumulated in 'totalWeight'.
+        setTotalWeight(0.0);
+
+        for (int i = 0; i < size; ++i) {
+            addToTotalWeight(weights[i]);
+        }
+
+        // The column indices are partitioned into a stack of "small" columns
+        // growing from the beginning of 'worklist' and a stack of "large"
+        // columns growing from its end.
+        int[] worklist = new int[size];
+        int smallTop = 0;
+        int largeTop = size;
+
+        for (int i = 0; i < size; ++i) {
+            // Dividing first keeps the result finite for any total weight,
+            // whereas 'size / totalWeight' overflows for subnormal totals.
+            probabilities[i] = weights[i] / totalWeight * size;
+
+            if (probabilities[i] < 1.0) {
+                worklist[smallTop++] = i;
+            } else {
+                worklist[--largeTop] = i;
+            }
+        }
+
+        while (smallTop > 0 && largeTop < size) {
+            int small = worklist[--smallTop];
+            int large = worklist[largeTop];
+
+            aliases[small] = large;
+            probabilities[large] += probabilities[small] - 1.0;
+
+            if (probabilities[large] < 1.0) {
+                // 'large' became small. Move it to the other stack.
+                ++largeTop;
+                worklist[smallTop++] = large;
+            }
+        }
+
+        // Due to round-off errors, the remaining columns might be marginally
+        // off from 1.0.
+        while (largeTop < size) {
+            probabilities[worklist[largeTop++]] = 1.0;
+        }
+
+        while (smallTop > 0) {
+            probabilities[worklist[--smallTop]] = 1.0;
+        }
+
+        dirty = false;
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= elements.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity, 2 * elements.length);
+        elements      = Arrays.copyOf(elements, newCapacity);
+        weights       = Arrays.copyOf(weights, newCapacity);
+        probabilities = Arrays.copyOf(probabilities, newCapacity);
+        aliases       = Arrays.copyOf(aliases, newCapacity);
+    }
+
+    public static void main(String[] args) {
+        AliasProbabilityDistribution<Integer> pd =
+                new AliasProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
@@ -0,0 +1,474 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution relying on the same
+ * leaf-and-relay sum tree as {@link BinaryTreeProbabilityDistribution}, but
+ * the tree is stored implicitly in primitive arrays using the heap layout: the
+ * children of the node at index {@code i} are at indices {@code 2i + 1} and
+ * {@code 2i + 2}. With {@code n} elements, the tree has {@code 2n - 1} nodes,
+ * the nodes at indices {@code n - 1, ..., 2n - 2} are the leaves, and the
+ * remaining ones are relay nodes. Since the tree is always complete, its height
+ * is at most <tt>ceil(log n)</tt>. The running times are as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized O(log n)</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt> </td>  <td><tt>O(log n)</tt>,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(log n)</tt>.</td></tr>
+ * </table>
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class ArrayBinaryTreeProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default number of nodes the internal arrays can accommodate.
+     */
+    private static final int DEFAULT_CAPACITY = 15;
+
+    /**
+     * Maps each element to the index of its leaf node.
+     */
+    private Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * {@code weights[i]} is the weight of the element if the node {@code i} is
+     * a leaf, and the sum of the weights of its children if it is a relay
+     * node.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY];
+
+    /**
+     * {@code elements[i]} is the element of the node {@code i} if it is a
+     * leaf, and {@code null} otherwise.
+     */
+    private Object[] elements = new Object[DEFAULT_CAPACITY];
+
+    /**
+     * The number of elements, or equivalently, the number of leaf nodes.
+     */
+    private int size;
+
+    /**
+     * Constructs this probability distribution using a default random number
+     * generator.
+     */
+    public ArrayBinaryTreeProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator to use.
+     */
+    public ArrayBinaryTreeProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public ArrayBinaryTreeProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        Integer node = map.get(element);
+
+        if (node == null) {
+            insert(element, weight);
+        } else {
+            weights[node] += weight;
+            updateMetadata(node);
+        }
+
+        totalWeight = weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>Unless there are fewer new elements than elements already present,
+     * this implementation lays out all the leaves anew and recomputes the
+     * relay nodes bottom-up in linear time. Otherwise, the elements are added
+     * one by one in <tt>O(log n)</tt> time each.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void addAllValidated(E[] elements, double[] weights) {
+        if (elements.length < size) {
+            super.addAllValidated(elements, weights);
+            return;
+        }
+
+        map = HashMaps.withCapacity(map, size + elements.length);
+        Object[] leafElements = new Object[size + elements.length];
+        double[] leafWeights = new double[size + elements.length];
+        int count = 0;
+
+        // While collecting the leaves, the map points to their positions in
+        // the above arrays.
+        for (int node = size - 1; node < 2 * size - 1; ++node) {
+            leafElements[count] = this.elements[node];
+            leafWeights[count] = this.weights[node];
+            map.put((E) this.elements[node], count);
+            ++count;
+        }
+
+        for (int i = 0; i < elements.length; ++i) {
+            Integer position = map.get(elements[i]);
+
+            if (position == null) {
+                leafElements[count] = elements[i];
+                leafWeights[count] = weights[i];
+                map.put(elements[i], count);
+                ++count;
+            } else {
+                leafWeights[position] += weights[i];
+            }
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        ensureCapacity(2 * count - 1);
+        Arrays.fill(this.elements, 0, count - 1, null);
+
+        for (int i = 0; i < count; ++i) {
+            setLeaf(count - 1 + i, (E) leafElements[i], leafWeights[i]);
+        }
+
+        for (int node = count - 2; node >= 0; --node) {
+            this.weights[node] = this.weights[2 * node + 1] +
+                                 this.weights[2 * node + 2];
+        }
+
+        size = count;
+        totalWeight = this.weights[0];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Integer node = map.get(element);
+        return node == null ? 0.0 : weights[node];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation runs in <tt>O(log n)</tt> time.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Integer node = map.get(element);
+
+        if (node == null) {
+            return false;
+        }
+
+        weights[node] = weight;
+        updateMetadata(node);
+        totalWeight = weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E sampleElement() {
+        checkNotEmpty(size);
+        return (E) elements[sampleLeaf(totalWeight * random.nextDouble())];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation samples the elements one by one, temporarily
+     * setting the weight of each sampled leaf to zero. Since the relay weights
+     * are recomputed from their children, restoring the leaf weights restores
+     * the tree exactly. This runs in <tt>O(k log n)</tt> time.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<E> sampleDistinct(int k) {
+        checkDistinctCount(k);
+        int count = Math.min(k, size);
+        List<E> result = new ArrayList<>(count);
+        int[] suppressedLeaves = new int[count];
+        double[] suppressedWeights = new double[count];
+        int suppressed = 0;
+
+        try {
+            while (suppressed < count) {
+                int leaf = sampleLeaf(weights[0] * random.nextDouble());
+
+                if (weights[leaf] == 0.0) {
+                    // Round-off errors led to a suppressed leaf. Try again.
+                    continue;
+                }
+
+                result.add((E) elements[leaf]);
+                suppressedLeaves[suppressed] = leaf;
+                suppressedWeights[suppressed] = weights[leaf];
+                ++suppressed;
+                weights[leaf] = 0.0;
+                updateMetadata(leaf);
+            }
+        } finally {
+            for (int i = suppressed - 1; i >= 0; --i) {
+                weights[suppressedLeaves[i]] = suppressedWeights[i];
+                updateMetadata(suppressedLeaves[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        Integer node = map.remove(element);
+
+        if (node == null) {
+            return false;
+        }
+
+        delete(node);
+        totalWeight = size == 0 ? 0.0 : weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(elements, 0, Math.max(0, 2 * size - 1), null);
+        size = 0;
+        totalWeight = 0.0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * size);
+
+        for (int node = size - 1; node < 2 * size - 1; ++node) {
+            result.put((E) elements[node], weights[node]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Descends from the root to the leaf whose weight range contains
+     * {@code value}.
+     *
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the index of the leaf.
+     */
+    private int sampleLeaf(double value) {
+        int firstLeaf = size - 1;
+        int node = 0;
+
+        while (node < firstLeaf) {
+            int leftChild = 2 * node + 1;
+
+            if (value < weights[leftChild]) {
+                node = leftChild;
+            } else {
+                value -= weights[leftChild];
+                node = leftChild + 1;
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Inserts a new leaf. The first leaf is bypassed by a relay node: its
+     * element moves to the left child, and the new element becomes the right
+     * child. Both children are appended to the end of the arrays, so the tree
+     * remains complete.
+     *
+     * @param element the element to insert.
+     * @param weight  the weight of the element.
+     */
+    @SuppressWarnings("unchecked")
+    private void insert(E element, double weight) {
+        if (size == 0) {
+            ensureCapacity(1);
+            setLeaf(0, element, weight);
+            size = 1;
+            return;
+        }
+
+        ensureCapacity(2 * size + 1);
+        int leafNodeToBypass = size - 1;
+        int leftChild = 2 * leafNodeToBypass + 1;
+
+        setLeaf(leftChild,
+                (E) elements[leafNodeToBypass],
+                weights[leafNodeToBypass]);
+
+        setLeaf(leftChild + 1, element, weight);
+        elements[leafNodeToBypass] = null;
+        ++size;
+        updateMetadata(leftChild);
+    }
+
+    /**
+     * Removes the leaf {@code node}. The last leaf is moved to the hole, after
+     * which the last two leaves are collapsed into their parent, which becomes
+     * a leaf.
+     *
+     * @param node the leaf node to delete.
+     */
+    @SuppressWarnings("unchecked")
+    private void delete(int node) {
+        if (size == 1) {
+            elements[0] = null;
+            size = 0;
+            return;
+        }
+
+        int lastLeaf = 2 * size - 2;
+
+        if (node != lastLeaf) {
+            setLeaf(node, (E) elements[lastLeaf], weights[lastLeaf]);
+            updateMetadata(node);
+        }
+
+        // Now the last leaf is garbage. Its sibling moves to their parent.
+        int sibling = lastLeaf - 1;
+        int parent = (sibling - 1) >> 1;
+        setLeaf(parent, (E) elements[sibling], weights[sibling]);
+        elements[sibling] = null;
+        elements[lastLeaf] = null;
+        --size;
+        updateMetadata(parent);
+    }
+
+    /**
+     * Stores the element {@code element} with the weight {@code weight} in the
+     * leaf {@code node}.
+     *
+     * @param node    the target leaf node.
+     * @param element the element.
+     * @param weight  the weight of the element.
+     */
+    private void setLeaf(int node, E element, double weight) {
+        elements[node] = element;
+        weights[node] = weight;
+        map.put(element, node);
+    }
+
+    /**
+     * Recomputes the weights of all the predecessors of the node {@code node}
+     * from the weights of their children. Unlike adding deltas, this does not
+     * let the relay weights drift from the actual sums.
+     *
+     * @param node the node whose predecessors to update.
+     */
+    private void updateMetadata(int node) {
+        while (node > 0) {
+            node = (node - 1) >> 1;
+            int leftChild = 2 * node + 1;
+            weights[node] = weights[leftChild] + weights[leftChild + 1];
+        }
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= weights.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity, 2 * weights.length + 1);
+        weights  = Arrays.copyOf(weights, newCapacity);
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    public static void main(String[] args) {
+        ArrayBinaryTreeProbabilityDistribution<Integer> pd =
+                new ArrayBinaryTreeProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
@@ -3,10 +3,13 @@ package net.coderodde.stat.support;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
 
 /**
  * This class implements a probability distribution relying on an array of 
@@ -16,9 +19,18 @@ import net.coderodde.stat.AbstractProbabilityDistribution;
  * <tr style="border: 1px solid black;"><td>Method</td>  <td>Complexity</td></tr>
  * <tr><td><tt>addElement   </tt> </td>  <td>amortized constant time,</td></tr>
  * <tr><td><tt>sampleElement</tt> </td>  <td><tt>worst case O(n)</tt>,</td></tr>
- * <tr><td><tt>removeElement</tt> </td>  <td><tt>worst case O(n)</tt>.</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(1)</tt>.</td></tr>
  * </table>
  * 
+ * <p>The expected running time of sampling is proportional to the expected 
+ * position of the sampled entry in the storage. In the self-organizing mode,
+ * each sampled entry swaps places with the entry halfway toward the front if
+ * that one is lighter, or otherwise with its predecessor if that one is 
+ * lighter. Since heavy entries are sampled often, they soon migrate to the 
+ * front of the storage, and the storage converges to the descending order of
+ * weights, in which it stays. For skewed weights, this brings the expected 
+ * number of entries scanned per sample close to a small constant.
+ * 
  * @param <E> the actual type of the elements stored in this probability 
  *            distribution.
  * 
@@ -28,6 +40,12 @@ import net.coderodde.stat.AbstractProbabilityDistribution;
 public class ArrayProbabilityDistribution<E> 
 extends AbstractProbabilityDistribution<E> {
 
+    /**
+     * The smallest batch size for which the batch sampling sweeps the storage
+     * once instead of scanning it for each draw.
+     */
+    private static final int MINIMUM_SWEEP_SAMPLE_COUNT = 8;
+
     /**
      * Couples the actual element with its respective weight.
      * 
@@ -45,9 +63,15 @@ extends AbstractProbabilityDistribution<E> {
          */
         private double weight;
         
-        Entry(E element, double weight) {
+        /**
+         * The index of this entry in the storage.
+         */
+        private int index;
+        
+        Entry(E element, double weight, int index) {
             this.element = element;
             this.weight = weight;
+            this.index = index;
         }
         
         E getElement() {
@@ -66,20 +90,59 @@ extends AbstractProbabilityDistribution<E> {
     /**
      * The actual storage array holding the entries.
      */
-    private final List<Entry<E>> storage = new ArrayList<>();
+    private final ArrayList<Entry<E>> storage = new ArrayList<>();
     
     /**
      * This map maps each element in this probability distribution to its 
      * respective entry object.
      */
-    private final Map<E, Entry<E>> map = new HashMap<>();
+    private Map<E, Entry<E>> map = new HashMap<>();
     
+    /**
+     * Tells whether the sampled entries are moved toward the front of the 
+     * storage.
+     */
+    private final boolean selfOrganizing;
+    
+    /**
+     * Constructs this probability distribution with default random number 
+     * generator.
+     */
     public ArrayProbabilityDistribution() {
-        this(new Random());
+        this(RandomSources.threadLocal());
     }
 
+    /**
+     * Constructs this probability distribution with given random number 
+     * generator.
+     * 
+     * @param random the random number generator.
+     */
     public ArrayProbabilityDistribution(Random random) {
+        this(RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     * The storage is not reordered by sampling.
+     * 
+     * @param random the random source.
+     */
+    public ArrayProbabilityDistribution(RandomSource random) {
+        this(random, false);
+    }
+    
+    /**
+     * Constructs this probability distribution using the input random source.
+     * 
+     * @param random         the random source.
+     * @param selfOrganizing whether to move the sampled entries toward the 
+     *                       front of the storage.
+     */
+    public ArrayProbabilityDistribution(RandomSource random, 
+                                        boolean selfOrganizing) {
         super(random);
+        this.selfOrganizing = selfOrganizing;
     }
 
     /**
@@ -91,14 +154,59 @@ extends AbstractProbabilityDistribution<E> {
         Entry<E> entry = map.get(element);
         
         if (entry != null) {
+            // Account for the rounded sum actually stored.
+            addToTotalWeight(-entry.getWeight());
             entry.setWeight(entry.getWeight() + weight);
+            addToTotalWeight(entry.getWeight());
         } else {
-            entry = new Entry<>(element, weight);
+            entry = new Entry<>(element, weight, storage.size());
             map.put(element, entry);
             storage.add(entry);
+            addToTotalWeight(weight);
         }
         
-        totalWeight += weight;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation presizes the storage and the map before adding
+     * the elements.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        map = HashMaps.withCapacity(map, map.size() + elements.length);
+        storage.ensureCapacity(storage.size() + elements.length);
+        super.addAllValidated(elements, weights);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Entry<E> entry = map.get(element);
+        return entry == null ? 0.0 : entry.getWeight();
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation runs in constant time.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Entry<E> entry = map.get(element);
+        
+        if (entry == null) {
+            return false;
+        }
+        
+        addToTotalWeight(weight);
+        addToTotalWeight(-entry.getWeight());
+        entry.setWeight(weight);
         return true;
     }
 
@@ -108,25 +216,165 @@ extends AbstractProbabilityDistribution<E> {
     @Override
     public E sampleElement() {
         checkNotEmpty();
-        double value = random.nextDouble() * totalWeight;
-        int distributionSize = storage.size();
+        return sample(random.nextDouble() * totalWeight);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty();
         
-        for (int i = 0; i < distributionSize; ++i) {
-            Entry<E> entry = storage.get(i);
-            double currentWeight = entry.getWeight();
-            
-            if (value < currentWeight) {
-                return entry.getElement();
+        if (count < MINIMUM_SWEEP_SAMPLE_COUNT) {
+            double weight = totalWeight;
+
+            for (int i = 0; i < count; ++i) {
+                out[i] = sample(random.nextDouble() * weight);
+            }
+        } else {
+            sweep(createSortedRandomValues(count), out);
+            shuffle(out, count);
+        }
+    }
+    
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation selects the elements by exponential keys directly
+     * from the storage.
+     */
+    @Override
+    public List<E> sampleDistinct(int k) {
+        checkDistinctCount(k);
+        int size = storage.size();
+        double[] weights = new double[size];
+        
+        for (int i = 0; i < size; ++i) {
+            weights[i] = storage.get(i).getWeight();
+        }
+        
+        int[] selected = selectByExponentialKeys(weights, size, k);
+        List<E> result = new ArrayList<>(selected.length);
+        
+        for (int i : selected) {
+            result.add(storage.get(i).getElement());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Samples {@code count} elements independently and stores them in 
+     * {@code out[0], ..., out[count - 1]} in the order in which they appear in
+     * the storage. The elements are sampled in a single sweep over the storage,
+     * so this method runs in <tt>O(n + count)</tt> time. Since the output is 
+     * sorted by storage position, its components are not exchangeable; use
+     * {@link #sampleElements(int, Object[])} whenever the order matters.
+     * 
+     * @param count the number of elements to sample.
+     * @param out   the array to which to store the sampled elements.
+     */
+    public void sampleElementsInStorageOrder(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty();
+        sweep(createSortedRandomValues(count), out);
+    }
+    
+    /**
+     * Maps each of the ascending values {@code sortedValues} to the element 
+     * whose weight range contains it, and stores the elements in {@code out}.
+     * 
+     * @param sortedValues the values within <tt>[0, totalWeight)</tt> in 
+     *                     ascending order.
+     * @param out          the array to which to store the elements.
+     */
+    private void sweep(double[] sortedValues, E[] out) {
+        int lastIndex = storage.size() - 1;
+        int index = 0;
+        Entry<E> entry = storage.get(0);
+        double upperBound = entry.getWeight();
+        
+        for (int i = 0; i < sortedValues.length; ++i) {
+            // Round-off errors may let the value exceed the last upper bound,
+            // in which case the last element is used.
+            while (sortedValues[i] >= upperBound && index < lastIndex) {
+                entry = storage.get(++index);
+                upperBound += entry.getWeight();
             }
             
-            value -= currentWeight;
+            out[i] = entry.getElement();
         }
+    }
 
-        throw new IllegalStateException("Should not get here.");
+    /**
+     * Returns the element whose weight range contains {@code value}.
+     * 
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element containing the value.
+     */
+    private E sample(double value) {
+        int lastIndex = storage.size() - 1;
+        int index = 0;
+        Entry<E> entry = storage.get(0);
+        
+        // Round-off errors may let the value exceed the last upper bound, in
+        // which case the last element is used.
+        while (value >= entry.getWeight() && index < lastIndex) {
+            value -= entry.getWeight();
+            entry = storage.get(++index);
+        }
+        
+        if (selfOrganizing && index > 0) {
+            moveTowardFront(entry);
+        }
+        
+        return entry.getElement();
+    }
+    
+    /**
+     * Swaps the entry {@code entry} with the entry halfway toward the front of
+     * the storage or, failing that, with its predecessor, provided that the
+     * other entry is lighter. The jump lets a heavy entry reach the front in a
+     * logarithmic number of hits, and the fallback makes sure that the only
+     * stable order is the sorted one.
+     * 
+     * @param entry the entry to move. Must not be the first entry.
+     */
+    private void moveTowardFront(Entry<E> entry) {
+        int index = entry.index;
+        Entry<E> otherEntry = storage.get(index >>> 1);
+        
+        if (otherEntry.getWeight() >= entry.getWeight()) {
+            otherEntry = storage.get(index - 1);
+            
+            if (otherEntry.getWeight() >= entry.getWeight()) {
+                return;
+            }
+        }
+        
+        entry.index = otherEntry.index;
+        otherEntry.index = index;
+        storage.set(entry.index, entry);
+        storage.set(index, otherEntry);
     }
 
     /**
      * {@inheritDoc } 
+     * 
+     * <p>This implementation moves the last entry of the storage to the place
+     * of the removed entry and thus runs in constant time.
      */
     @Override
     public boolean removeElement(E element) {
@@ -136,8 +384,14 @@ extends AbstractProbabilityDistribution<E> {
             return false;
         }
         
-        totalWeight -= entry.getWeight();
-        storage.remove(entry);
+        addToTotalWeight(-entry.getWeight());
+        Entry<E> lastEntry = storage.remove(storage.size() - 1);
+        
+        if (lastEntry != entry) {
+            lastEntry.index = entry.index;
+            storage.set(entry.index, lastEntry);
+        }
+        
         return true;
     }
 
@@ -148,7 +402,7 @@ extends AbstractProbabilityDistribution<E> {
     public void clear() {
         map.clear();
         storage.clear();
-        totalWeight = 0.0;
+        setTotalWeight(0.0);
     }
 
     /**
@@ -175,6 +429,20 @@ extends AbstractProbabilityDistribution<E> {
         return map.containsKey(element);
     }
     
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * storage.size());
+        
+        for (Entry<E> entry : storage) {
+            result.put(entry.getElement(), entry.getWeight());
+        }
+        
+        return result;
+    }
+    
     protected void checkNotEmpty() {
         checkNotEmpty(storage.size());
     }
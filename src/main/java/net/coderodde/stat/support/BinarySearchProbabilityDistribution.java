@@ -3,23 +3,61 @@ package net.coderodde.stat.support;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
 
 /**
  * This class implements a probability distribution data structure that 
  * maintains an accumulated sum of weights and thus allows sampling the elements
  * in worst-case logarithmic time.
  * 
+ * <p>The accumulated weights are kept in a flat <tt>double</tt> array, so 
+ * that the binary search touches no other memory until it finds the entry.
+ * 
+ * <p>Updates do not touch the accumulated weights. Instead, they record the
+ * lowest index whose accumulated weight may be stale, and removed entries 
+ * leave holes in the internal arrays until the next sampling recomputes the 
+ * accumulated weights from that index on and closes the holes in a single
+ * pass. This way, a burst of updates costs amortized constant time per update.
+ * 
+ * <p>Optionally, the accumulated weights are additionally laid out in the 
+ * Eytzinger order, that is, in the breadth-first order of the implicit search
+ * tree. The top levels of that tree share a few cache lines, and the next
+ * probes along either path lie next to each other. This speeds up the search
+ * itself, at the price of a full linear-time relayout prior to the first
+ * sampling after any update. The layout is off by default, since it does not
+ * pay off as a whole for large distributions: from about 100 000 elements on,
+ * the cost of {@link #sampleElement()} is dominated by the cache miss on the
+ * sampled entry, and in our measurements the layout did not make sampling
+ * faster at 100 000 and 10 000 000 elements. It is worthwhile for small
+ * distributions that are sampled many times between updates.
+ * 
  * @author Rodion "rodde" Efremov
- * @version 1.61 (Sep 30, 2016)
+ * @version 1.7 (Oct 18, 2026)
  */
 public class BinarySearchProbabilityDistribution<E> 
 extends AbstractProbabilityDistribution<E> {
 
+    /**
+     * The default capacity of the internal arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+    
+    /**
+     * The Eytzinger descent computes the next probe index without branching 
+     * while within the components below this bound, which are likely to be 
+     * cached, so that no branch is mispredicted. Below that, it branches, so 
+     * that the processor speculatively loads the next probe before the 
+     * current one arrives from memory.
+     */
+    private static final int BRANCHLESS_EYTZINGER_COMPONENTS = 1 << 16;
+    
     /**
      * This class implements the actual entry in the distribution.
      * 
@@ -29,54 +67,85 @@ extends AbstractProbabilityDistribution<E> {
         
         private final E element;
         
-        private double weight;
+        /**
+         * The index of this entry in the internal arrays.
+         */
+        private int index;
         
-        private double accumulatedWeight;
-        
-        Entry(E element, double weight, double accumulatedWeight) {
+        Entry(E element, int index) {
             this.element = element;
-            this.weight = weight; 
-            this.accumulatedWeight = accumulatedWeight;
+            this.index = index;
         }
         
         E getElement() {
             return element;
         }
-        
-        double getWeight() {
-            return weight;
-        }
-        
-        void setWeight(double weight) {
-            this.weight = weight;
-        }
-        
-        double getAccumulatedWeight() {
-            return accumulatedWeight;
-        }
-        
-        void addAccumulatedWeight(double delta) {
-            accumulatedWeight += delta;
-        }
     }
     
     /**
      * This map maps each element stored in this probability distribution to its
      * respective entry.
      */
-    private final Map<E, Entry<E>> map = new HashMap<>();
+    private Map<E, Entry<E>> map = new HashMap<>();
+    
+    /**
+     * Holds the entries in the order of their weight ranges. A removed entry
+     * leaves a <tt>null</tt> hole until the next compaction. Only the first 
+     * {@code storageSize} components are used.
+     */
+    private Entry<E>[] entries = newEntryArray(DEFAULT_CAPACITY);
+    
+    /**
+     * {@code weights[i]} is the weight of {@code entries[i]}.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY];
+    
+    /**
+     * {@code accumulatedWeights[i]} is the sum of the weights of the entries 
+     * up to and including the index {@code i}, so that {@code entries[i]} owns
+     * the range <tt>[accumulatedWeights[i - 1], accumulatedWeights[i])</tt>.
+     * The binary search probes only this array.
+     */
+    private double[] accumulatedWeights = new double[DEFAULT_CAPACITY];
+    
+    /**
+     * The number of used slots in the internal arrays, including the holes.
+     */
+    private int storageSize;
+    
+    /**
+     * The index of the first entry whose accumulated weight may be stale or 
+     * that may be removed. All the accumulated weights are valid and there are
+     * no holes in the internal arrays if this is at least 
+     * {@code storageSize}.
+     */
+    private int firstStaleIndex = Integer.MAX_VALUE;
     
     /**
-     * Holds the actual distribution entries.
+     * Tells whether the Eytzinger layout is maintained.
      */
-    private final List<Entry<E>> storage = new ArrayList<>();
+    private final boolean eytzingerLayout;
+    
+    /**
+     * The accumulated weights in the Eytzinger order: the component 
+     * {@code 1} is the root of the implicit search tree and the children of the
+     * component {@code k} are the components {@code 2k} and {@code 2k + 1}. 
+     * Used only in the Eytzinger layout.
+     */
+    private double[] eytzingerKeys;
+    
+    /**
+     * {@code eytzingerEntries[k]} is the entry whose accumulated weight is 
+     * {@code eytzingerKeys[k]}. Used only in the Eytzinger layout.
+     */
+    private Entry<E>[] eytzingerEntries;
     
     /**
      * Constructs this probability distribution with default random number 
      * generator.
      */
     public BinarySearchProbabilityDistribution() {
-        this(new Random());
+        this(RandomSources.threadLocal());
     }
     
     /**
@@ -86,7 +155,30 @@ extends AbstractProbabilityDistribution<E> {
      * @param random the random number generator.
      */
     public BinarySearchProbabilityDistribution(Random random) {
+        this(RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public BinarySearchProbabilityDistribution(RandomSource random) {
+        this(random, false);
+    }
+    
+    /**
+     * Constructs this probability distribution using the input random source.
+     * 
+     * @param random          the random source.
+     * @param eytzingerLayout whether to sample from the accumulated weights
+     *                        laid out in the Eytzinger order. See the class
+     *                        comment for when this pays off.
+     */
+    public BinarySearchProbabilityDistribution(RandomSource random,
+                                               boolean eytzingerLayout) {
         super(random);
+        this.eytzingerLayout = eytzingerLayout;
     }
     
     /**
@@ -98,16 +190,72 @@ extends AbstractProbabilityDistribution<E> {
         Entry<E> entry = map.get(element);
         
         if (entry == null) {
-            entry = new Entry<>(element, weight, totalWeight);
-            map.put(element, entry);
-            storage.add(entry);
+            ensureCapacity(storageSize + 1);
+            append(element, weight);
         } else {
-            for (int i = storage.indexOf(entry); i < storage.size(); ++i) {
-                storage.get(i).addAccumulatedWeight(weight);
+            weights[entry.index] += weight;
+            markStale(entry.index);
+        }
+        
+        addToTotalWeight(weight);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation appends the new entries and leaves their 
+     * accumulated weights to the single pass prior to the next sampling.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        map = HashMaps.withCapacity(map, map.size() + elements.length);
+        ensureCapacity(storageSize + elements.length);
+        markStale(storageSize);
+        
+        for (int i = 0; i < elements.length; ++i) {
+            Entry<E> entry = map.get(elements[i]);
+            
+            if (entry == null) {
+                append(elements[i], weights[i]);
+            } else {
+                this.weights[entry.index] += weights[i];
+                markStale(entry.index);
             }
+            
+            addToTotalWeight(weights[i]);
+        }
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Entry<E> entry = map.get(element);
+        return entry == null ? 0.0 : weights[entry.index];
+    }
+    
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation runs in constant time. The accumulated weights 
+     * of the subsequent entries are fixed in a single pass prior to the next
+     * sampling, so that a burst of weight changes costs linear time in total.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Entry<E> entry = map.get(element);
+        
+        if (entry == null) {
+            return false;
         }
         
-        totalWeight += weight;
+        addToTotalWeight(weight);
+        addToTotalWeight(-weights[entry.index]);
+        weights[entry.index] = weight;
+        markStale(entry.index);
         return true;
     }
 
@@ -117,31 +265,111 @@ extends AbstractProbabilityDistribution<E> {
     @Override
     public E sampleElement() {
         checkNotEmpty();
-        double value = totalWeight * random.nextDouble();
+        fixAccumulatedWeights();
+        return sample(totalWeight * random.nextDouble());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty();
+        fixAccumulatedWeights();
+        double weight = totalWeight;
+        
+        for (int i = 0; i < count; ++i) {
+            out[i] = sample(random.nextDouble() * weight);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation selects the elements by exponential keys directly
+     * from the internal arrays.
+     */
+    @Override
+    public List<E> sampleDistinct(int k) {
+        checkDistinctCount(k);
+        fixAccumulatedWeights();
+        int[] selected = selectByExponentialKeys(weights, storageSize, k);
+        List<E> result = new ArrayList<>(selected.length);
+        
+        for (int i : selected) {
+            result.add(entries[i].getElement());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Finds by binary search the element whose weight range contains 
+     * {@code value}, that is, the first entry whose accumulated weight 
+     * exceeds {@code value}.
+     * 
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element containing the value.
+     */
+    private E sample(double value) {
+        if (eytzingerLayout) {
+            return sampleEytzinger(value);
+        }
         
         int left = 0;
-        int right = storage.size() - 1;
+        int right = storageSize - 1;
         
         while (left < right) {
-            int middle = left + ((right - left) >> 1);
-            Entry<E> middleEntry = storage.get(middle);
-            double lowerBound = middleEntry.getAccumulatedWeight();
-            double upperBound = lowerBound + middleEntry.getWeight();
+            int middle = (left + right) >>> 1;
             
-            if (lowerBound <= value && value < upperBound) {
-                return middleEntry.getElement();
-            }
-            
-            if (value < lowerBound) {
-                right = middle - 1;
+            if (value < accumulatedWeights[middle]) {
+                right = middle;
             } else {
                 left = middle + 1;
             }
         }
         
-        return storage.get(left).getElement();
+        return entries[left].getElement();
     }
 
+    /**
+     * Finds the first entry whose accumulated weight exceeds {@code value} by
+     * descending the Eytzinger layout. The descent goes right whenever the key
+     * does not exceed the value. Once it falls off the tree, the bits of the
+     * final position spell out the path, and shifting out the trailing right 
+     * turns along with the last left turn yields the answer.
+     * 
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element containing the value.
+     */
+    private E sampleEytzinger(double value) {
+        double[] keys = eytzingerKeys;
+        int n = storageSize;
+        int branchlessBound = Math.min(n, BRANCHLESS_EYTZINGER_COMPONENTS);
+        int k = 1;
+        
+        while (k <= branchlessBound) {
+            k = 2 * k + (keys[k] <= value ? 1 : 0);
+        }
+        
+        while (k <= n) {
+            if (keys[k] <= value) {
+                k = 2 * k + 1;
+            } else {
+                k = 2 * k;
+            }
+        }
+        
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return eytzingerEntries[k].getElement();
+    }
+    
     /**
      * {@inheritDoc }
      */
@@ -152,6 +380,10 @@ extends AbstractProbabilityDistribution<E> {
 
     /**
      * {@inheritDoc }
+     * 
+     * <p>This implementation only leaves a hole in place of the entry. The 
+     * internal arrays are compacted prior to the next sampling, or as soon as 
+     * the holes outnumber the entries.
      */
     @Override
     public boolean removeElement(E element) {
@@ -161,14 +393,14 @@ extends AbstractProbabilityDistribution<E> {
             return false;
         }
         
-        int index = storage.indexOf(entry);
-        storage.remove(index);
+        markStale(entry.index);
+        addToTotalWeight(-weights[entry.index]);
+        entries[entry.index] = null;
         
-        for (int i = index; i < storage.size(); ++i) {
-            storage.get(i).addAccumulatedWeight(-entry.getWeight());
+        if (storageSize >= 2 * map.size()) {
+            fixAccumulatedWeights();
         }
         
-        totalWeight -= entry.getWeight();
         return true;
     }
 
@@ -178,8 +410,15 @@ extends AbstractProbabilityDistribution<E> {
     @Override
     public void clear() {
         map.clear();
-        storage.clear();
-        totalWeight = 0.0;
+        Arrays.fill(entries, 0, storageSize, null);
+        
+        if (eytzingerEntries != null) {
+            Arrays.fill(eytzingerEntries, null);
+        }
+        
+        storageSize = 0;
+        setTotalWeight(0.0);
+        firstStaleIndex = Integer.MAX_VALUE;
     }
 
     /**
@@ -187,7 +426,7 @@ extends AbstractProbabilityDistribution<E> {
      */
     @Override
     public boolean isEmpty() {
-        return storage.isEmpty();
+        return map.isEmpty();
     }
 
     /**
@@ -195,11 +434,141 @@ extends AbstractProbabilityDistribution<E> {
      */
     @Override
     public int size() {
-        return storage.size();
+        return map.size();
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * map.size());
+        
+        for (int i = 0; i < storageSize; ++i) {
+            if (entries[i] != null) {
+                result.put(entries[i].getElement(), weights[i]);
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Appends a new entry. The capacity must suffice.
+     * 
+     * @param element the element to append.
+     * @param weight  the weight of the element.
+     */
+    private void append(E element, double weight) {
+        Entry<E> entry = new Entry<>(element, storageSize);
+        map.put(element, entry);
+        entries[storageSize] = entry;
+        weights[storageSize] = weight;
+        markStale(storageSize);
+        ++storageSize;
+    }
+    
+    /**
+     * Records that the accumulated weights from the index {@code index} on may
+     * be stale.
+     * 
+     * @param index the index of the first entry to recompute.
+     */
+    private void markStale(int index) {
+        firstStaleIndex = Math.min(firstStaleIndex, index);
+    }
+    
+    /**
+     * Recomputes the stale accumulated weights, if any, and closes the holes
+     * in the internal arrays in a single pass.
+     */
+    private void fixAccumulatedWeights() {
+        if (firstStaleIndex >= storageSize) {
+            firstStaleIndex = Integer.MAX_VALUE;
+            return;
+        }
+        
+        double accumulatedWeight = firstStaleIndex == 0 ? 
+                                   0.0 : 
+                                   accumulatedWeights[firstStaleIndex - 1];
+        int targetIndex = firstStaleIndex;
+        
+        for (int i = firstStaleIndex; i < storageSize; ++i) {
+            Entry<E> entry = entries[i];
+            
+            if (entry == null) {
+                continue;
+            }
+            
+            if (i != targetIndex) {
+                entry.index = targetIndex;
+                entries[targetIndex] = entry;
+                weights[targetIndex] = weights[i];
+            }
+            
+            accumulatedWeight += weights[targetIndex];
+            accumulatedWeights[targetIndex++] = accumulatedWeight;
+        }
+        
+        Arrays.fill(entries, targetIndex, storageSize, null);
+        storageSize = targetIndex;
+        setTotalWeight(accumulatedWeight);
+        firstStaleIndex = Integer.MAX_VALUE;
+        
+        if (eytzingerLayout) {
+            buildEytzingerLayout();
+        }
+    }
+    
+    /**
+     * Lays out the accumulated weights in the Eytzinger order.
+     */
+    private void buildEytzingerLayout() {
+        if (eytzingerKeys == null || eytzingerKeys.length <= storageSize) {
+            eytzingerKeys = new double[entries.length + 1];
+            eytzingerEntries = newEntryArray(entries.length + 1);
+        }
+        
+        buildEytzingerLayout(0, 1);
+    }
+    
+    /**
+     * Fills the subtree rooted at the component {@code k} by an in-order 
+     * traversal, starting from the entry at the index {@code index}.
+     * 
+     * @param index the index of the leftmost entry of the subtree.
+     * @param k     the root of the subtree.
+     * @return the index of the entry following the subtree.
+     */
+    private int buildEytzingerLayout(int index, int k) {
+        if (k <= storageSize) {
+            index = buildEytzingerLayout(index, 2 * k);
+            eytzingerKeys[k] = accumulatedWeights[index];
+            eytzingerEntries[k] = entries[index++];
+            index = buildEytzingerLayout(index, 2 * k + 1);
+        }
+        
+        return index;
+    }
+    
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= entries.length) {
+            return;
+        }
+        
+        int newCapacity = Math.max(requestedCapacity, 2 * entries.length);
+        entries            = Arrays.copyOf(entries, newCapacity);
+        weights            = Arrays.copyOf(weights, newCapacity);
+        accumulatedWeights = Arrays.copyOf(accumulatedWeights, newCapacity);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> Entry<E>[] newEntryArray(int capacity) {
+        return (Entry<E>[]) new Entry<?>[capacity];
     }
     
     private void checkNotEmpty() {
-        checkNotEmpty(storage.size());
+        checkNotEmpty(map.size());
     }
     
     public static void main(String[] args) {
@@ -1,18 +1,32 @@
 package net.coderodde.stat.support;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
 
 /**
  * This class implements a probability distribution relying on a binary tree
  * structure. It allows <tt>O(log n)</tt> worst case time for adding, removing
  * and sampling an element.
  * 
+ * <p>The numbers of leaves in the two subtrees of each relay node differ by at
+ * most one, so that the height of the tree never exceeds 
+ * <tt>ceil(log2 n)</tt> under any sequence of insertions and deletions.
+ * 
+ * <p>The weight of each relay node is always recomputed as the sum of the 
+ * weights of its two children instead of being adjusted by deltas, so that 
+ * rounding errors do not accumulate no matter how long the distribution is 
+ * updated. The total weight is taken from the root.
+ * 
  * @author Rodion "rodde" Efremov
  * @version 1.61 (Sep 30, 2016)
  * @param <E> the actual type of the elements stored in this distribution.
@@ -161,7 +175,7 @@ extends AbstractProbabilityDistribution<E> {
     /**
      * Maps each element to the list of nodes representing the element.
      */
-    private final Map<E, Node<E>> map = new HashMap<>();
+    private Map<E, Node<E>> map = new HashMap<>();
 
     /**
      * The root node of this distribution tree.
@@ -173,7 +187,7 @@ extends AbstractProbabilityDistribution<E> {
      * generator.
      */
     public BinaryTreeProbabilityDistribution() {
-        this(new Random());
+        this(RandomSources.threadLocal());
     }
 
     /**
@@ -186,6 +200,15 @@ extends AbstractProbabilityDistribution<E> {
         super(random);
     }
 
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public BinaryTreeProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -200,10 +223,78 @@ extends AbstractProbabilityDistribution<E> {
             map.put(element, node);
         } else {
             node.setWeight(node.getWeight() + weight);
-            updateMetadata(node, weight, 0);
+            updateMetadata(node.getParent());
         }
         
-        totalWeight += weight;
+        totalWeight = root.getWeight();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>Unless there are fewer new elements than elements already present,
+     * this implementation rebuilds the entire tree bottom-up from its leaves
+     * in linear time. Otherwise, the elements are added one by one in 
+     * <tt>O(log n)</tt> time each.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        if (elements.length < map.size()) {
+            super.addAllValidated(elements, weights);
+            return;
+        }
+        
+        map = HashMaps.withCapacity(map, map.size() + elements.length);
+        
+        for (int i = 0; i < elements.length; ++i) {
+            Node<E> leaf = map.get(elements[i]);
+            
+            if (leaf == null) {
+                map.put(elements[i], new Node<>(elements[i], weights[i]));
+            } else {
+                leaf.setWeight(leaf.getWeight() + weights[i]);
+            }
+        }
+        
+        if (map.isEmpty()) {
+            return;
+        }
+        
+        Node<E>[] leaves = map.values().toArray(
+                BinaryTreeProbabilityDistribution.<E>newNodeArray(map.size()));
+        root = buildTree(leaves, 0, leaves.length);
+        root.setParent(null);
+        totalWeight = root.getWeight();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Node<E> leaf = map.get(element);
+        return leaf == null ? 0.0 : leaf.getWeight();
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation updates the leaf and its predecessors in 
+     * <tt>O(log n)</tt> time.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Node<E> leaf = map.get(element);
+        
+        if (leaf == null) {
+            return false;
+        }
+        
+        leaf.setWeight(weight);
+        updateMetadata(leaf.getParent());
+        totalWeight = root.getWeight();
         return true;
     }
 
@@ -221,11 +312,82 @@ extends AbstractProbabilityDistribution<E> {
     @Override
     public E sampleElement() {
         checkNotEmpty(map.size());
-        double value = totalWeight * random.nextDouble();
+        return sampleLeaf(totalWeight * random.nextDouble()).getElement();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty(map.size());
+        double weight = totalWeight;
+        
+        for (int i = 0; i < count; ++i) {
+            out[i] = sampleLeaf(random.nextDouble() * weight).getElement();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation samples the elements one by one, temporarily 
+     * setting the weight of each sampled leaf to zero. Since the relay weights
+     * are recomputed from their children, restoring the leaf weights restores
+     * the tree exactly. This runs in <tt>O(k log n)</tt> time.
+     */
+    @Override
+    public List<E> sampleDistinct(int k) {
+        checkDistinctCount(k);
+        int count = Math.min(k, map.size());
+        List<E> result = new ArrayList<>(count);
+        List<Node<E>> suppressedLeaves = new ArrayList<>(count);
+        double[] suppressedWeights = new double[count];
+        
+        try {
+            while (result.size() < count) {
+                // The root weight stays positive as long as some leaf weight
+                // does, and the descent skips the suppressed subtrees.
+                Node<E> leaf = sampleLeaf(root.getWeight() * 
+                                          random.nextDouble());
+                result.add(leaf.getElement());
+                suppressedWeights[suppressedLeaves.size()] = leaf.getWeight();
+                suppressedLeaves.add(leaf);
+                leaf.setWeight(0.0);
+                updateMetadata(leaf.getParent());
+            }
+        } finally {
+            for (int i = suppressedLeaves.size() - 1; i >= 0; --i) {
+                Node<E> leaf = suppressedLeaves.get(i);
+                leaf.setWeight(suppressedWeights[i]);
+                updateMetadata(leaf.getParent());
+            }
+        }
+        
+        return result;
+    }
+
+    /**
+     * Descends from the root to the leaf whose weight range contains 
+     * {@code value}.
+     * 
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the leaf.
+     */
+    private Node<E> sampleLeaf(double value) {
         Node<E> node = root;
 
         while (node.isRelayNode()) {
-            if (value < node.getLeftChild().getWeight()) {
+            // Never descend into a subtree of zero weight, even if round-off
+            // errors push the value past the left subtree.
+            if (value < node.getLeftChild().getWeight() ||
+                    node.getRightChild().getWeight() == 0.0) {
                 node = node.getLeftChild();
             } else {
                 value -= node.getLeftChild().getWeight();
@@ -233,7 +395,7 @@ extends AbstractProbabilityDistribution<E> {
             }
         }
 
-        return node.getElement();
+        return node;
     }
 
     /**
@@ -248,7 +410,7 @@ extends AbstractProbabilityDistribution<E> {
         }
 
         delete(node);
-        totalWeight -= node.getWeight();
+        totalWeight = root == null ? 0.0 : root.getWeight();
         return true;
     }
 
@@ -278,6 +440,20 @@ extends AbstractProbabilityDistribution<E> {
         return map.size();
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * map.size());
+        
+        for (Map.Entry<E, Node<E>> entry : map.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getWeight());
+        }
+        
+        return result;
+    }
+
     /**
      * Assuming that {@code leafNodeToBypass} is a leaf node, this procedure 
      * attaches a relay node instead of it, and assigns {@code leafNodeToBypass}
@@ -307,7 +483,36 @@ extends AbstractProbabilityDistribution<E> {
             parentOfCurrentNode.setRightChild(relayNode);
         }
 
-        updateMetadata(relayNode, newNode.getWeight(), 1);
+        updateMetadata(relayNode);
+    }
+
+    /**
+     * Builds a balanced tree over the leaves 
+     * {@code leaves[fromIndex], ..., leaves[toIndex - 1]}. The numbers of 
+     * leaves in the two subtrees of each relay node differ by at most one.
+     * 
+     * @param leaves    the array of leaf nodes.
+     * @param fromIndex the index of the first leaf.
+     * @param toIndex   one past the index of the last leaf.
+     * @return the root of the new tree.
+     */
+    private Node<E> buildTree(Node<E>[] leaves, int fromIndex, int toIndex) {
+        if (toIndex - fromIndex == 1) {
+            return leaves[fromIndex];
+        }
+        
+        int middle = (fromIndex + toIndex) >>> 1;
+        Node<E> leftChild = buildTree(leaves, fromIndex, middle);
+        Node<E> rightChild = buildTree(leaves, middle, toIndex);
+        Node<E> relayNode = new Node<>(leftChild.getWeight() + 
+                                       rightChild.getWeight());
+        
+        relayNode.setNumberOfLeaves(toIndex - fromIndex);
+        relayNode.setLeftChild(leftChild);
+        relayNode.setRightChild(rightChild);
+        leftChild.setParent(relayNode);
+        rightChild.setParent(relayNode);
+        return relayNode;
     }
 
     private void insert(Node<E> node) {
@@ -330,8 +535,43 @@ extends AbstractProbabilityDistribution<E> {
         bypassLeafNode(currentNode, node);
     }
 
+    /**
+     * Deletes the leaf {@code leafToDelete} from the tree. In order to keep 
+     * the tree balanced, the leaf reached by always descending to the child 
+     * with more leaves is spliced out instead, and is then moved to the place
+     * of the leaf to delete.
+     * 
+     * @param leafToDelete the leaf to delete.
+     */
     private void delete(Node<E> leafToDelete) {
-        Node<E> relayNode = leafToDelete.getParent();
+        Node<E> donorLeaf = root;
+        
+        while (donorLeaf.isRelayNode()) {
+            if (donorLeaf.getLeftChild().getNumberOfLeaves() > 
+                    donorLeaf.getRightChild().getNumberOfLeaves()) {
+                donorLeaf = donorLeaf.getLeftChild();
+            } else {
+                donorLeaf = donorLeaf.getRightChild();
+            }
+        }
+        
+        spliceOut(donorLeaf);
+        
+        if (donorLeaf != leafToDelete) {
+            Node<E> parent = leafToDelete.getParent();
+            replaceChild(parent, leafToDelete, donorLeaf);
+            updateMetadata(parent);
+        }
+    }
+    
+    /**
+     * Removes the leaf {@code leaf} from the tree by replacing its parent 
+     * relay node with its sibling.
+     * 
+     * @param leaf the leaf to remove.
+     */
+    private void spliceOut(Node<E> leaf) {
+        Node<E> relayNode = leaf.getParent();
 
         if (relayNode == null) {
             root = null;
@@ -339,42 +579,49 @@ extends AbstractProbabilityDistribution<E> {
         } 
 
         Node<E> parentOfRelayNode = relayNode.getParent();
-        Node<E> siblingLeaf = relayNode.getLeftChild() == leafToDelete ?
-                                    relayNode.getRightChild() :
-                                    relayNode.getLeftChild();
-
-        if (parentOfRelayNode == null) {
-            root = siblingLeaf;
-            siblingLeaf.setParent(null);
-            return;
-        }
+        Node<E> sibling = relayNode.getLeftChild() == leaf ?
+                          relayNode.getRightChild() :
+                          relayNode.getLeftChild();
 
-        if (parentOfRelayNode.getLeftChild() == relayNode) {
-            parentOfRelayNode.setLeftChild(siblingLeaf);
+        replaceChild(parentOfRelayNode, relayNode, sibling);
+        updateMetadata(parentOfRelayNode);
+    }
+    
+    /**
+     * Makes {@code newChild} the child of {@code parent} in place of 
+     * {@code oldChild}. If {@code parent} is {@code null}, {@code newChild} 
+     * becomes the root.
+     */
+    private void replaceChild(Node<E> parent, 
+                              Node<E> oldChild, 
+                              Node<E> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.getLeftChild() == oldChild) {
+            parent.setLeftChild(newChild);
         } else {
-            parentOfRelayNode.setRightChild(siblingLeaf);
+            parent.setRightChild(newChild);
         }
-
-        siblingLeaf.setParent(parentOfRelayNode);
-        updateMetadata(leafToDelete.getParent(), -leafToDelete.getWeight(), -1);
+        
+        newChild.setParent(parent);
     }
 
     /**
      * This method is responsible for updating the metadata of this data 
-     * structure.
+     * structure. The weight and the number of leaves of each relay node are
+     * recomputed from its children.
      * 
-     * @param node      the node from which to start the metadata update. The 
-     *                  updating routine updates also the metadata of all the 
-     *                  predecessors of this node in the tree.
-     * @param weight    the weight delta to add to each predecessor node.
-     * @param nodeDelta the node count delta to add to each predecessor node.
+     * @param node the node from which to start the metadata update. The 
+     *             updating routine updates also the metadata of all the 
+     *             predecessors of this node in the tree.
      */
-    private void updateMetadata(Node<E> node, 
-                                double weightDelta, 
-                                int nodeDelta) {
+    private void updateMetadata(Node<E> node) {
         while (node != null) {
-            node.setNumberOfLeaves(node.getNumberOfLeaves() + nodeDelta);
-            node.setWeight(node.getWeight() + weightDelta);
+            Node<E> leftChild = node.getLeftChild();
+            Node<E> rightChild = node.getRightChild();
+            node.setNumberOfLeaves(leftChild.getNumberOfLeaves() + 
+                                   rightChild.getNumberOfLeaves());
+            node.setWeight(leftChild.getWeight() + rightChild.getWeight());
             node = node.getParent();
         }
     }
@@ -415,6 +662,16 @@ extends AbstractProbabilityDistribution<E> {
         queue.addLast(node.getRightChild());
     }
 
+    /**
+     * Returns the height of the tree, which is <tt>-1</tt> for the empty tree 
+     * and <tt>0</tt> for a single leaf. Runs in linear time.
+     * 
+     * @return the height of the tree.
+     */
+    int getHeight() {
+        return getTreeHeight(root);
+    }
+
     private int getTreeHeight(Node<E> node) {
         if (node == null) {
             return -1;
@@ -423,6 +680,11 @@ extends AbstractProbabilityDistribution<E> {
         return 1 + Math.max(getTreeHeight(node.getLeftChild()),
                             getTreeHeight(node.getRightChild()));
     }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Node<E>[] newNodeArray(int length) {
+        return (Node<E>[]) new Node<?>[length];
+    }
     
     public static void main(String[] args) {
          BinaryTreeProbabilityDistribution<Integer> pd = 
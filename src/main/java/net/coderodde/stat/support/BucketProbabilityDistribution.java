@@ -0,0 +1,551 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a dynamic probability distribution in the spirit of
+ * Matias, Vitter and Ni. The elements are grouped into buckets by the binary
+ * exponent of their weights, so that all the weights in the bucket with the
+ * exponent {@code e} lie in the range <tt>[2^e, 2^(e + 1))</tt>. The
+ * exponent of a subnormal weight is that of its leading one bit, so that this
+ * holds for subnormal weights as well. Sampling first chooses a bucket
+ * proportionally to its total weight using a sum tree over the non-empty
+ * buckets, and then chooses an element within the bucket by rejection: a
+ * uniformly chosen element is accepted with probability
+ * <tt>weight / 2^(e + 1)</tt>, which is at least one half. The running times
+ * are as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized O(log b)</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt> </td>
+ *     <td><tt>O(log b)</tt> expected,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(log b)</tt>,</td></tr>
+ * </table>
+ *
+ * where <tt>b</tt> is the number of non-empty buckets. Since <tt>b</tt> is at
+ * most the number of distinct binary exponents among the weights, that is,
+ * 2098, all the operations run in constant time bounded independently of the
+ * number of elements.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class BucketProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The smallest binary exponent of a weight, namely that of
+     * {@link Double#MIN_VALUE}.
+     */
+    private static final int MIN_EXPONENT = Double.MIN_EXPONENT - 52;
+
+    /**
+     * The default number of leaves in the sum tree over the buckets.
+     */
+    private static final int DEFAULT_TREE_CAPACITY = 8;
+
+    /**
+     * The number of different binary exponents of a weight.
+     */
+    private static final int NUMBER_OF_EXPONENTS =
+            Double.MAX_EXPONENT - MIN_EXPONENT + 1;
+
+    /**
+     * Couples the actual element with its weight and its location.
+     *
+     * @param <E> the actual type of the element.
+     */
+    private static final class Entry<E> {
+
+        /**
+         * The actual element.
+         */
+        private final E element;
+
+        /**
+         * The weight assigned to the {@code element}.
+         */
+        private double weight;
+
+        /**
+         * The bucket containing this entry.
+         */
+        private Bucket<E> bucket;
+
+        /**
+         * The index of this entry in its bucket.
+         */
+        private int index;
+
+        /**
+         * The probability of accepting this entry once chosen in its bucket.
+         */
+        private double acceptanceProbability;
+
+        Entry(E element, double weight) {
+            this.element = element;
+            this.weight = weight;
+        }
+
+        E getElement() {
+            return element;
+        }
+
+        double getWeight() {
+            return weight;
+        }
+
+        void setWeight(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Holds all the entries whose weights share the same binary exponent.
+     *
+     * @param <E> the actual type of the elements.
+     */
+    private static final class Bucket<E> {
+
+        /**
+         * The binary exponent of the weights in this bucket.
+         */
+        private final int exponent;
+
+        /**
+         * The entries in this bucket.
+         */
+        private final List<Entry<E>> entries = new ArrayList<>();
+
+        /**
+         * The running sum of the weights in this bucket.
+         */
+        private double weightSum;
+
+        /**
+         * The low-order bits lost by {@code weightSum} so far.
+         */
+        private double weightCompensation;
+
+        /**
+         * The index of this bucket in the list of non-empty buckets.
+         */
+        private int index;
+
+        Bucket(int exponent) {
+            this.exponent = exponent;
+        }
+
+        double getWeight() {
+            return weightSum + weightCompensation;
+        }
+
+        /**
+         * Adds {@code delta} to the weight of this bucket using Neumaier's
+         * compensated summation.
+         *
+         * @param delta the amount to add.
+         */
+        void addWeight(double delta) {
+            double sum = weightSum + delta;
+
+            if (Math.abs(weightSum) >= Math.abs(delta)) {
+                weightCompensation += (weightSum - sum) + delta;
+            } else {
+                weightCompensation += (delta - sum) + weightSum;
+            }
+
+            weightSum = sum;
+        }
+
+        void resetWeight() {
+            weightSum = 0.0;
+            weightCompensation = 0.0;
+        }
+    }
+
+    /**
+     * Maps each element to its entry.
+     */
+    private final Map<E, Entry<E>> map = new HashMap<>();
+
+    /**
+     * {@code buckets[e - MIN_EXPONENT]} is the bucket of the exponent
+     * {@code e}, or {@code null} if it was never needed.
+     */
+    private final Bucket<E>[] buckets = newBucketArray(NUMBER_OF_EXPONENTS);
+
+    /**
+     * Lists all the non-empty buckets.
+     */
+    private final List<Bucket<E>> nonEmptyBuckets = new ArrayList<>();
+
+    /**
+     * The sum tree over the weights of the non-empty buckets. The leaf of the
+     * bucket {@code nonEmptyBuckets.get(i)} is {@code bucketTree[c + i]}, where
+     * {@code c} is the leaf capacity, a power of two, and each node {@code j}
+     * below {@code c} holds the sum of its children {@code 2j} and
+     * {@code 2j + 1}. Each node is recomputed from its children, so that the
+     * round-off errors do not accumulate.
+     */
+    private double[] bucketTree = new double[2 * DEFAULT_TREE_CAPACITY];
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator.
+     */
+    public BucketProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    public BucketProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public BucketProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        Entry<E> entry = map.get(element);
+
+        if (entry == null) {
+            entry = new Entry<>(element, weight);
+            map.put(element, entry);
+            addToBucket(entry);
+            addToTotalWeight(weight);
+        } else {
+            // Account for the rounded sum actually stored.
+            unlinkFromBucket(entry);
+            addToTotalWeight(-entry.getWeight());
+            entry.setWeight(entry.getWeight() + weight);
+            addToTotalWeight(entry.getWeight());
+            addToBucket(entry);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Entry<E> entry = map.get(element);
+        return entry == null ? 0.0 : entry.getWeight();
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation moves the entry to the bucket matching its new
+     * weight in constant time.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Entry<E> entry = map.get(element);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlinkFromBucket(entry);
+        addToTotalWeight(weight);
+        addToTotalWeight(-entry.getWeight());
+        entry.setWeight(weight);
+        addToBucket(entry);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E sampleElement() {
+        checkNotEmpty(map.size());
+        int treeCapacity = bucketTree.length >>> 1;
+        double value = random.nextDouble() * bucketTree[1];
+        int node = 1;
+
+        while (node < treeCapacity) {
+            int leftChild = 2 * node;
+
+            // Never descend into an empty subtree, even if round-off errors
+            // push the value past the left subtree.
+            if (value < bucketTree[leftChild] ||
+                    bucketTree[leftChild + 1] == 0.0) {
+                node = leftChild;
+            } else {
+                value -= bucketTree[leftChild];
+                node = leftChild + 1;
+            }
+        }
+
+        List<Entry<E>> entries = nonEmptyBuckets.get(node - treeCapacity)
+                                                .entries;
+        int bucketSize = entries.size();
+
+        while (true) {
+            Entry<E> entry = entries.get(random.nextInt(bucketSize));
+
+            if (random.nextDouble() < entry.acceptanceProbability) {
+                return entry.getElement();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        Entry<E> entry = map.remove(element);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlinkFromBucket(entry);
+        addToTotalWeight(-entry.getWeight());
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        for (Bucket<E> bucket : nonEmptyBuckets) {
+            bucket.entries.clear();
+            bucket.resetWeight();
+        }
+
+        nonEmptyBuckets.clear();
+        Arrays.fill(bucketTree, 0.0);
+        map.clear();
+        setTotalWeight(0.0);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * map.size());
+
+        for (Bucket<E> bucket : nonEmptyBuckets) {
+            for (Entry<E> entry : bucket.entries) {
+                result.put(entry.getElement(), entry.getWeight());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Appends the entry to the bucket matching its weight.
+     *
+     * @param entry the entry to add.
+     */
+    private void addToBucket(Entry<E> entry) {
+        int exponent = getExponent(entry.getWeight());
+        Bucket<E> bucket = buckets[exponent - MIN_EXPONENT];
+
+        if (bucket == null) {
+            bucket = new Bucket<>(exponent);
+            buckets[exponent - MIN_EXPONENT] = bucket;
+        }
+
+        if (bucket.entries.isEmpty()) {
+            bucket.index = nonEmptyBuckets.size();
+            nonEmptyBuckets.add(bucket);
+
+            if (nonEmptyBuckets.size() > bucketTree.length >>> 1) {
+                growBucketTree();
+            }
+        }
+
+        entry.bucket = bucket;
+        entry.index = bucket.entries.size();
+        // Exact, since only the exponent changes.
+        entry.acceptanceProbability =
+                Math.scalb(entry.getWeight(), -exponent - 1);
+        bucket.entries.add(entry);
+        bucket.addWeight(entry.getWeight());
+        updateBucketTree(bucket.index);
+    }
+
+    /**
+     * Removes the entry from its bucket by moving the last entry of the bucket
+     * to its place.
+     *
+     * @param entry the entry to remove.
+     */
+    private void unlinkFromBucket(Entry<E> entry) {
+        Bucket<E> bucket = entry.bucket;
+        List<Entry<E>> entries = bucket.entries;
+        Entry<E> lastEntry = entries.remove(entries.size() - 1);
+
+        if (lastEntry != entry) {
+            lastEntry.index = entry.index;
+            entries.set(entry.index, lastEntry);
+        }
+
+        if (entries.isEmpty()) {
+            // Reset the sum so that round-off errors do not survive.
+            bucket.resetWeight();
+            int lastBucketIndex = nonEmptyBuckets.size() - 1;
+            Bucket<E> lastBucket = nonEmptyBuckets.remove(lastBucketIndex);
+
+            if (lastBucket != bucket) {
+                lastBucket.index = bucket.index;
+                nonEmptyBuckets.set(bucket.index, lastBucket);
+                updateBucketTree(bucket.index);
+            }
+
+            updateBucketTree(lastBucketIndex);
+        } else {
+            bucket.addWeight(-entry.getWeight());
+            updateBucketTree(bucket.index);
+        }
+
+        entry.bucket = null;
+    }
+
+    /**
+     * Sets the leaf of the non-empty bucket at index {@code index} to the
+     * weight of the bucket, or to zero if there is no such bucket, and
+     * recomputes all the predecessors of the leaf.
+     *
+     * @param index the index of the bucket in the list of non-empty buckets.
+     */
+    private void updateBucketTree(int index) {
+        int node = (bucketTree.length >>> 1) + index;
+        bucketTree[node] = index < nonEmptyBuckets.size() ?
+                           nonEmptyBuckets.get(index).getWeight() :
+                           0.0;
+
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            bucketTree[node] = bucketTree[2 * node] + bucketTree[2 * node + 1];
+        }
+    }
+
+    /**
+     * Doubles the number of leaves in the bucket tree and rebuilds it.
+     */
+    private void growBucketTree() {
+        int treeCapacity = bucketTree.length;
+        bucketTree = new double[2 * treeCapacity];
+
+        for (int i = 0; i < nonEmptyBuckets.size(); ++i) {
+            bucketTree[treeCapacity + i] = nonEmptyBuckets.get(i).getWeight();
+        }
+
+        for (int node = treeCapacity - 1; node > 0; --node) {
+            bucketTree[node] = bucketTree[2 * node] + bucketTree[2 * node + 1];
+        }
+    }
+
+    /**
+     * Returns the binary exponent of {@code weight}, that is, the integer
+     * {@code e} for which <tt>2^e &lt;= weight &lt; 2^(e + 1)</tt>. Unlike
+     * {@link Math#getExponent(double)}, this works for subnormal weights as
+     * well.
+     *
+     * @param weight the positive weight.
+     * @return the binary exponent of the weight.
+     */
+    private static int getExponent(double weight) {
+        int exponent = Math.getExponent(weight);
+
+        if (exponent < Double.MIN_EXPONENT) {
+            // A subnormal weight: its exponent is given by the leading one bit
+            // of its significand.
+            long bits = Double.doubleToRawLongBits(weight);
+            exponent = Double.MIN_EXPONENT + 11 -
+                       Long.numberOfLeadingZeros(bits);
+        }
+
+        return exponent;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Bucket<E>[] newBucketArray(int capacity) {
+        return (Bucket<E>[]) new Bucket<?>[capacity];
+    }
+
+    public static void main(String[] args) {
+        BucketProbabilityDistribution<Integer> pd =
+                new BucketProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
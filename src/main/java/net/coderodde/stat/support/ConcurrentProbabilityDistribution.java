@@ -0,0 +1,492 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a thread-safe probability distribution optimized for
+ * many concurrent readers and few writers. Sampling never locks: readers
+ * sample from an immutable snapshot, an {@link AliasProbabilityDistribution}
+ * published through a volatile reference, in constant time.
+ *
+ * <p>Writers serialize on a lock and apply their changes to a master map. The
+ * changes are batched: a new snapshot is built and published only once the
+ * number of pending changes reaches {@code maxPendingChanges}, or once the
+ * oldest pending change is older than the staleness bound. A sampling thread
+ * that notices a stale snapshot publishes a new one unless another thread is
+ * already doing so. Publishing can also be forced via {@link #flush()}.
+ *
+ * <p>The methods {@link #contains(Object)}, {@link #size()},
+ * {@link #isEmpty()} and {@link #toMap()} reflect all the changes made so far,
+ * whereas the sampling methods reflect the latest snapshot. A sampling thread
+ * that finds the latest snapshot empty while changes are pending does not
+ * fail: it blocks in {@link #flush()} until it acquires the write lock and
+ * publishes the changes.
+ *
+ * <p>As in the other probability distributions, {@code null} is a valid
+ * element. It is stored in the master map under a private sentinel key.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class ConcurrentProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default maximum number of changes to accumulate before publishing a
+     * new snapshot.
+     */
+    private static final int DEFAULT_MAX_PENDING_CHANGES = 1024;
+
+    /**
+     * The default maximum age of a pending change in milliseconds.
+     */
+    private static final long DEFAULT_MAX_STALENESS_MILLIS = 100L;
+
+    /**
+     * Maps each element, masked by {@link NullElements#mask(Object)}, to its
+     * current weight.
+     */
+    private final Map<Object, Double> master = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the writers and the publishing of snapshots.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The maximum number of changes to accumulate before publishing.
+     */
+    private final int maxPendingChanges;
+
+    /**
+     * The maximum age of a pending change in nanoseconds.
+     */
+    private final long maxStalenessNanos;
+
+    /**
+     * The snapshot all readers sample from.
+     */
+    private volatile AliasProbabilityDistribution<E> snapshot;
+
+    /**
+     * Tells whether the master map contains changes not yet published.
+     */
+    private volatile boolean pending;
+
+    /**
+     * The time of the oldest unpublished change as of
+     * {@link System#nanoTime()}.
+     */
+    private volatile long oldestPendingChangeNanos;
+
+    /**
+     * The number of unpublished changes. Guarded by {@code writeLock}.
+     */
+    private int pendingChanges;
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator and default batching parameters.
+     */
+    public ConcurrentProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator and default batching parameters.
+     *
+     * @param random the random number generator.
+     */
+    public ConcurrentProbabilityDistribution(Random random) {
+        this(RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution with given random source and
+     * default batching parameters.
+     *
+     * @param random the random source.
+     */
+    public ConcurrentProbabilityDistribution(RandomSource random) {
+        this(random,
+             DEFAULT_MAX_PENDING_CHANGES,
+             DEFAULT_MAX_STALENESS_MILLIS,
+             TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator and batching parameters.
+     *
+     * @param random            the random number generator.
+     * @param maxPendingChanges the maximum number of changes to accumulate
+     *                          before publishing a new snapshot.
+     * @param maxStaleness      the maximum time a change may remain invisible
+     *                          to the readers.
+     * @param unit              the time unit of {@code maxStaleness}.
+     */
+    public ConcurrentProbabilityDistribution(Random random,
+                                             int maxPendingChanges,
+                                             long maxStaleness,
+                                             TimeUnit unit) {
+        this(RandomSources.of(random), maxPendingChanges, maxStaleness, unit);
+    }
+
+    /**
+     * Constructs this probability distribution with given random source and
+     * batching parameters. Since the readers share the random source, it
+     * should be thread-safe, such as {@link RandomSources#threadLocal()}.
+     *
+     * @param random            the random source.
+     * @param maxPendingChanges the maximum number of changes to accumulate
+     *                          before publishing a new snapshot.
+     * @param maxStaleness      the maximum time a change may remain invisible
+     *                          to the readers.
+     * @param unit              the time unit of {@code maxStaleness}.
+     */
+    public ConcurrentProbabilityDistribution(RandomSource random,
+                                             int maxPendingChanges,
+                                             long maxStaleness,
+                                             TimeUnit unit) {
+        super(random);
+
+        if (maxPendingChanges <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of pending changes must be " +
+                    "positive. Received " + maxPendingChanges);
+        }
+
+        if (maxStaleness < 0L) {
+            throw new IllegalArgumentException(
+                    "The staleness bound is negative: " + maxStaleness);
+        }
+
+        this.maxPendingChanges = maxPendingChanges;
+        this.maxStalenessNanos = unit.toNanos(maxStaleness);
+        this.snapshot = new AliasProbabilityDistribution<>(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        writeLock.lock();
+
+        try {
+            Object key = NullElements.mask(element);
+            Double currentWeight = master.get(key);
+            master.put(key, currentWeight == null ?
+                            weight :
+                            currentWeight + weight);
+            onChange();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation applies all the additions under a single
+     * acquisition of the write lock and publishes a single snapshot.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        writeLock.lock();
+
+        try {
+            for (int i = 0; i < elements.length; ++i) {
+                Object key = NullElements.mask(elements[i]);
+                Double currentWeight = master.get(key);
+                master.put(key, currentWeight == null ?
+                                weights[i] :
+                                currentWeight + weights[i]);
+            }
+
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Double weight = master.get(NullElements.mask(element));
+        return weight == null ? 0.0 : weight;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        writeLock.lock();
+
+        try {
+            Object key = NullElements.mask(element);
+
+            if (master.replace(key, weight) == null) {
+                return false;
+            }
+
+            onChange();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation reads and writes the weight under a single
+     * acquisition of the write lock.
+     */
+    @Override
+    public boolean adjustWeight(E element, double delta) {
+        writeLock.lock();
+
+        try {
+            Object key = NullElements.mask(element);
+            Double currentWeight = master.get(key);
+
+            if (currentWeight == null) {
+                return false;
+            }
+
+            double weight = currentWeight + delta;
+            checkWeight(weight);
+            master.put(key, weight);
+            onChange();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E sampleElement() {
+        return getSnapshotForSampling().sampleElement();
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>All the elements of the batch are sampled from the same snapshot.
+     */
+    @Override
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+
+        if (count == 0) {
+            return;
+        }
+
+        getSnapshotForSampling().sampleElements(count, out);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return master.containsKey(NullElements.mask(element));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        writeLock.lock();
+
+        try {
+            if (master.remove(NullElements.mask(element)) == null) {
+                return false;
+            }
+
+            onChange();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        writeLock.lock();
+
+        try {
+            master.clear();
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return master.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return master.size();
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>The returned value is the total weight of the latest published
+     * snapshot, which is read through a volatile reference and is therefore
+     * safe to call from any thread. Pending changes are not reflected until
+     * they are published.
+     */
+    @Override
+    public double getTotalWeight() {
+        return snapshot.getTotalWeight();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * master.size());
+
+        for (Map.Entry<Object, Double> entry : master.entrySet()) {
+            result.put(NullElements.<E>unmask(entry.getKey()),
+                       entry.getValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * Publishes all the pending changes to the readers immediately.
+     */
+    public void flush() {
+        writeLock.lock();
+
+        try {
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the snapshot to sample from. If the snapshot is older than the
+     * staleness bound allows, a fresh one is published first, unless another
+     * thread is already busy publishing.
+     *
+     * @return the snapshot to sample from.
+     */
+    private AliasProbabilityDistribution<E> getSnapshotForSampling() {
+        AliasProbabilityDistribution<E> currentSnapshot = snapshot;
+
+        if (pending) {
+            if (currentSnapshot.isEmpty()) {
+                // Nothing to sample from. Wait for the fresh snapshot.
+                flush();
+            } else if (System.nanoTime() - oldestPendingChangeNanos >=
+                       maxStalenessNanos && writeLock.tryLock()) {
+                try {
+                    publish();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+
+            currentSnapshot = snapshot;
+        }
+
+        checkNotEmpty(currentSnapshot.size());
+        return currentSnapshot;
+    }
+
+    /**
+     * Records a change to the master map and publishes a new snapshot if the
+     * batching parameters call for it. Must be called under the write lock.
+     */
+    private void onChange() {
+        long now = System.nanoTime();
+
+        if (!pending) {
+            oldestPendingChangeNanos = now;
+            pending = true;
+        }
+
+        if (++pendingChanges >= maxPendingChanges ||
+                now - oldestPendingChangeNanos >= maxStalenessNanos) {
+            publish();
+        }
+    }
+
+    /**
+     * Builds a new snapshot from the master map and publishes it. Must be
+     * called under the write lock.
+     */
+    private void publish() {
+        AliasProbabilityDistribution<E> newSnapshot =
+                new AliasProbabilityDistribution<>(random);
+
+        newSnapshot.addAll(toMap());
+        newSnapshot.rebuild();
+        pendingChanges = 0;
+        pending = false;
+        snapshot = newSnapshot;
+    }
+
+    public static void main(String[] args) {
+        ConcurrentProbabilityDistribution<Integer> pd =
+                new ConcurrentProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
@@ -0,0 +1,537 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution relying on a Fenwick tree
+ * (also known as a binary indexed tree) stored in a primitive array. Each
+ * element occupies a single slot, and no per-element node objects are
+ * allocated. The running times are as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized O(log n)</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt> </td>  <td><tt>O(log n)</tt>,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(log^2 n)</tt>.</td></tr>
+ * </table>
+ *
+ * <p>The exact weight of each slot is stored in a separate array, and all the
+ * weight queries read it; the tree is used only for the prefix sums. The tree
+ * nodes are increased by adding deltas, but recomputed from the slot weights
+ * when decreased, since subtracting a large weight from a node would leave
+ * only the round-off error in place of the small weights next to it. To keep
+ * the errors of the additions bounded, each update recomputes one more tree
+ * node from the slot weights, sweeping over the entire tree once every
+ * <tt>n</tt> updates.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class FenwickProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default capacity of the internal arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * The number of consecutive times {@code sampleDistinct} may land on an
+     * already sampled slot before it falls back to a linear pick.
+     */
+    private static final int MAX_SUPPRESSED_HITS = 8;
+
+    /**
+     * Maps each element to its slot. The slots are one-based.
+     */
+    private Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * Stores the elements; {@code elements[i]} is the element in the slot
+     * {@code i}. The component at index zero is not used.
+     */
+    private Object[] elements = new Object[DEFAULT_CAPACITY + 1];
+
+    /**
+     * The actual Fenwick tree: {@code tree[i]} holds the sum of the weights in
+     * the slots {@code i - lowbit(i) + 1, ..., i}.
+     */
+    private double[] tree = new double[DEFAULT_CAPACITY + 1];
+
+    /**
+     * Stores the weights; {@code weights[i]} is the weight of the element in
+     * the slot {@code i}. The component at index zero is not used.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY + 1];
+
+    /**
+     * The slot whose tree node is recomputed next.
+     */
+    private int refreshSlot = 1;
+
+    /**
+     * The number of elements in this probability distribution.
+     */
+    private int size;
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator.
+     */
+    public FenwickProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    public FenwickProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public FenwickProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        Integer slot = map.get(element);
+
+        if (slot == null) {
+            ensureCapacity(size + 1);
+            ++size;
+            map.put(element, size);
+            elements[size] = element;
+            weights[size] = weight;
+            tree[size] = weight + childrenSum(size);
+            addToTotalWeight(weight);
+        } else {
+            // Account for the rounded sum actually stored.
+            addToTotalWeight(-weights[slot]);
+            weights[slot] += weight;
+            addToTotalWeight(weights[slot]);
+            update(slot, weight);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation adds the elements to the slots and builds the
+     * tree from the slot weights anew, each step taking linear time.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        map = HashMaps.withCapacity(map, size + elements.length);
+        ensureCapacity(size + elements.length);
+
+        for (int i = 0; i < elements.length; ++i) {
+            Integer slot = map.get(elements[i]);
+
+            if (slot == null) {
+                ++size;
+                map.put(elements[i], size);
+                this.elements[size] = elements[i];
+                this.weights[size] = weights[i];
+            } else {
+                this.weights[slot] += weights[i];
+            }
+        }
+
+        System.arraycopy(this.weights, 1, tree, 1, size);
+        setTotalWeight(0.0);
+
+        // Each node passes its sum on to the next node covering it.
+        for (int slot = 1; slot <= size; ++slot) {
+            int parent = slot + (slot & -slot);
+
+            if (parent <= size) {
+                tree[parent] += tree[slot];
+            }
+
+            addToTotalWeight(this.weights[slot]);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Integer slot = map.get(element);
+        return slot == null ? 0.0 : weights[slot];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation runs in <tt>O(log n)</tt> time if the weight
+     * grows and in <tt>O(log^2 n)</tt> time otherwise.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Integer slot = map.get(element);
+
+        if (slot == null) {
+            return false;
+        }
+
+        double currentWeight = weights[slot];
+        weights[slot] = weight;
+        update(slot, weight - currentWeight);
+        addToTotalWeight(weight);
+        addToTotalWeight(-currentWeight);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E sampleElement() {
+        checkNotEmpty(size);
+        return (E) elements[sampleSlot(random.nextDouble() * totalWeight)];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation samples the elements one by one, temporarily
+     * suppressing the weight of each sampled slot. The tree nodes covering the
+     * slot are recomputed from the slot weights rather than decremented, so
+     * that a small weight next to a suppressed large one is not lost to
+     * cancellation. The suppressed tree nodes are saved beforehand and written
+     * back in reverse order, so that the tree is restored exactly. This runs
+     * in <tt>O(k log^2 n)</tt> time. Should the descent still land on an
+     * already sampled slot several times in a row, the slot is picked by a
+     * linear scan over the slot weights instead.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<E> sampleDistinct(int k) {
+        checkDistinctCount(k);
+        int count = Math.min(k, size);
+        List<E> result = new ArrayList<>(count);
+        BitSet suppressedSlots = new BitSet(size + 1);
+        // Each suppression changes at most 'pathLength' tree nodes.
+        int pathLength = 32 - Integer.numberOfLeadingZeros(size) + 1;
+        int[] changedNodes = new int[count * pathLength];
+        double[] originalWeights = new double[count * pathLength];
+        int changed = 0;
+        double remainingWeight = totalWeight;
+
+        try {
+            while (result.size() < count) {
+                int slot = sampleSlot(remainingWeight * random.nextDouble());
+                int suppressedHits = 0;
+
+                while (suppressedSlots.get(slot)) {
+                    // Round-off errors led to a suppressed slot. Try again.
+                    if (remainingWeight <= 0.0 ||
+                            ++suppressedHits == MAX_SUPPRESSED_HITS) {
+                        slot = sampleUnsuppressedSlot(suppressedSlots);
+                        break;
+                    }
+
+                    slot = sampleSlot(remainingWeight * random.nextDouble());
+                }
+
+                result.add((E) elements[slot]);
+                suppressedSlots.set(slot);
+
+                // The children of each node precede it, so that each node is
+                // recomputed from the already recomputed nodes below it.
+                for (int i = slot; i <= size; i += i & -i) {
+                    changedNodes[changed] = i;
+                    originalWeights[changed] = tree[i];
+                    ++changed;
+                    tree[i] = (suppressedSlots.get(i) ? 0.0 : weights[i]) +
+                              childrenSum(i);
+                }
+
+                remainingWeight = prefixSum(size);
+            }
+        } finally {
+            while (changed > 0) {
+                --changed;
+                tree[changedNodes[changed]] = originalWeights[changed];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Picks a slot not in {@code suppressedSlots} proportionally to its weight
+     * by scanning all the slots. If round-off errors carry the random value
+     * past the running sum, the last such slot is returned.
+     *
+     * @param suppressedSlots the slots to exclude. At least one slot must not
+     *                        be suppressed.
+     * @return the picked slot.
+     */
+    private int sampleUnsuppressedSlot(BitSet suppressedSlots) {
+        double weight = 0.0;
+
+        for (int slot = suppressedSlots.nextClearBit(1);
+                slot <= size;
+                slot = suppressedSlots.nextClearBit(slot + 1)) {
+            weight += weights[slot];
+        }
+
+        double value = weight * random.nextDouble();
+        int lastSlot = 0;
+
+        for (int slot = suppressedSlots.nextClearBit(1);
+                slot <= size;
+                slot = suppressedSlots.nextClearBit(slot + 1)) {
+            double slotWeight = weights[slot];
+
+            if (value < slotWeight) {
+                return slot;
+            }
+
+            value -= slotWeight;
+            lastSlot = slot;
+        }
+
+        return lastSlot;
+    }
+
+    /**
+     * Descends the tree to the slot whose weight range contains
+     * {@code value}.
+     *
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the slot containing the value.
+     */
+    private int sampleSlot(double value) {
+        int slot = 0;
+
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = slot + step;
+
+            if (next <= size && tree[next] <= value) {
+                value -= tree[next];
+                slot = next;
+            }
+        }
+
+        // Here, 'slot' is the last slot whose prefix sum does not exceed the
+        // value. Round-off errors may push it past the last element.
+        return Math.min(slot + 1, size);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeElement(E element) {
+        Integer slot = map.remove(element);
+
+        if (slot == null) {
+            return false;
+        }
+
+        double weight = weights[slot];
+        addToTotalWeight(-weight);
+
+        if (slot != size) {
+            // Move the last element to the freed slot.
+            double lastWeight = weights[size];
+            E lastElement = (E) elements[size];
+            weights[slot] = lastWeight;
+            update(slot, lastWeight - weight);
+            elements[slot] = lastElement;
+            map.put(lastElement, slot);
+        }
+
+        // No tree node below the last slot covers it, so it is enough to just
+        // forget it. Its tree node is recomputed once the slot is reused.
+        elements[size] = null;
+        --size;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(elements, 1, size + 1, null);
+        size = 0;
+        setTotalWeight(0.0);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * size);
+
+        for (int slot = 1; slot <= size; ++slot) {
+            result.put((E) elements[slot], weights[slot]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds {@code delta} to the tree nodes covering the slot {@code slot},
+     * whose weight has already been updated, and recomputes the next tree node
+     * of the refreshing sweep. A negative delta could cancel the leading
+     * digits of a node and expose the round-off of the earlier additions, so
+     * that the covering nodes are recomputed from the slot weights instead.
+     *
+     * @param slot  the target slot.
+     * @param delta the weight delta.
+     */
+    private void update(int slot, double delta) {
+        if (delta >= 0.0) {
+            for (int i = slot; i <= size; i += i & -i) {
+                tree[i] += delta;
+            }
+        } else {
+            // The children of each node precede it, so that each node is
+            // recomputed from the already recomputed nodes below it.
+            for (int i = slot; i <= size; i += i & -i) {
+                tree[i] = weights[i] + childrenSum(i);
+            }
+        }
+
+        if (refreshSlot > size) {
+            refreshSlot = 1;
+        }
+
+        // The children of the node precede it, so that the nodes refreshed
+        // in a single sweep build on each other.
+        tree[refreshSlot] = weights[refreshSlot] + childrenSum(refreshSlot);
+        ++refreshSlot;
+    }
+
+    /**
+     * Returns the sum of the weights in the slots {@code 1, ..., slot}.
+     *
+     * @param slot the last slot of the prefix.
+     * @return the sum of the weights in the prefix.
+     */
+    private double prefixSum(int slot) {
+        double sum = 0.0;
+
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the weights in the slots
+     * {@code slot - lowbit(slot) + 1, ..., slot - 1}, that is, the range
+     * covered by the tree node {@code slot} excluding the slot itself.
+     *
+     * @param slot the target slot.
+     * @return the sum of the weights covered by the children of the node.
+     */
+    private double childrenSum(int slot) {
+        double sum = 0.0;
+        int stop = slot - (slot & -slot);
+
+        for (int i = slot - 1; i > stop; i -= i & -i) {
+            sum += tree[i];
+        }
+
+        return sum;
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity < elements.length) {
+            return;
+        }
+
+        // Tree nodes depend only on their own slot ranges, so the tree
+        // survives the growth as is.
+        int newLength = Math.max(requestedCapacity + 1, 2 * elements.length);
+        elements = Arrays.copyOf(elements, newLength);
+        tree     = Arrays.copyOf(tree, newLength);
+        weights  = Arrays.copyOf(weights, newLength);
+    }
+
+    public static void main(String[] args) {
+        FenwickProbabilityDistribution<Integer> pd =
+                new FenwickProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
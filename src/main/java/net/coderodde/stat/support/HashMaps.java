@@ -0,0 +1,39 @@
+package net.coderodde.stat.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class provides a helper for presizing the hash maps of the probability
+ * distributions prior to bulk additions.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+final class HashMaps {
+
+    private HashMaps() {}
+
+    /**
+     * Returns a hash map holding the entries of {@code map} that accommodates
+     * {@code expectedSize} entries without resizing. If filling {@code map}
+     * entry by entry would resize it at most once, {@code map} itself is
+     * returned.
+     *
+     * @param <K>          the key type.
+     * @param <V>          the value type.
+     * @param map          the map to presize.
+     * @param expectedSize the expected number of entries.
+     * @return a map with the same entries as {@code map}.
+     */
+    static <K, V> Map<K, V> withCapacity(Map<K, V> map, int expectedSize) {
+        if (expectedSize <= 2 * map.size()) {
+            return map;
+        }
+
+        Map<K, V> result = new HashMap<>(
+                (int) Math.min(Integer.MAX_VALUE, expectedSize / 0.75 + 1.0));
+        result.putAll(map);
+        return result;
+    }
+}
@@ -0,0 +1,654 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution relying on a sum tree
+ * shaped by the weights rather than by the number of leaves: the tree is a
+ * Huffman tree, so that heavy elements sit close to the root and light ones
+ * sit deep. The expected number of internal nodes visited per sample is thus
+ * less than <tt>H(p) + 1</tt>, where <tt>H(p)</tt> is the binary entropy of
+ * the distribution, which for skewed weights is far below <tt>log n</tt>. The
+ * running times are as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>  <td><tt>O(depth)</tt>,</td></tr>
+ * <tr><td><tt>setWeight    </tt></td>  <td><tt>O(depth)</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt></td>
+ *     <td><tt>expected O(H(p) + 1)</tt>, or <tt>O(n log n)</tt> once the
+ *         changes call for a rebuild,</td></tr>
+ * <tr><td><tt>removeElement</tt></td>  <td><tt>O(depth)</tt>.</td></tr>
+ * </table>
+ *
+ * Insertions, weight changes and removals update the tree in place: a new
+ * leaf is attached next to a subtree not heavier than itself, found by
+ * descending into the lighter child from the root, a removed leaf is spliced
+ * out, and a changed weight is propagated along the path to the root. The
+ * sampling remains exact, yet the shape is no longer optimal for the new
+ * weights. Once the number of such changes since the last rebuild reaches the
+ * number of elements, the tree is rebuilt lazily on the next sampling, which
+ * amortizes to <tt>O(log n)</tt> per change.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class HuffmanTreeProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default capacity of the internal arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Denotes the missing parent of the root.
+     */
+    private static final int NO_PARENT = -1;
+
+    /**
+     * Maps each element to its index in the internal arrays.
+     */
+    private Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * Stores the elements. Only the first {@code size} components are used.
+     */
+    private Object[] elements = new Object[DEFAULT_CAPACITY];
+
+    /**
+     * Stores the weights of the elements.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY];
+
+    /**
+     * {@code leafParents[i]} is the internal node whose child is the leaf of
+     * the element {@code elements[i]}.
+     */
+    private int[] leafParents = new int[DEFAULT_CAPACITY];
+
+    // The tree has 'size - 1' internal nodes indexed from zero. A child
+    // reference 'c' denotes the internal node 'c' if it is non-negative, and
+    // the leaf of the element '~c' otherwise.
+
+    /**
+     * {@code leftChildren[k]} refers to the left child of the internal node
+     * {@code k}.
+     */
+    private int[] leftChildren = new int[DEFAULT_CAPACITY];
+
+    /**
+     * {@code rightChildren[k]} refers to the right child of the internal node
+     * {@code k}.
+     */
+    private int[] rightChildren = new int[DEFAULT_CAPACITY];
+
+    /**
+     * {@code leftWeights[k]} is the total weight of the left subtree of the
+     * internal node {@code k}. The sampling descends left whenever the value
+     * is below it.
+     */
+    private double[] leftWeights = new double[DEFAULT_CAPACITY];
+
+    /**
+     * {@code parents[k]} is the parent of the internal node {@code k}.
+     */
+    private int[] parents = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Refers to the root of the tree.
+     */
+    private int root;
+
+    /**
+     * The number of elements in this probability distribution.
+     */
+    private int size;
+
+    /**
+     * The number of in-place changes made to the tree since the last rebuild.
+     */
+    private int changesSinceRebuild;
+
+    /**
+     * Indicates whether the tree must be rebuilt before sampling. While set,
+     * the tree is not maintained.
+     */
+    private boolean dirty;
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator.
+     */
+    public HuffmanTreeProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    public HuffmanTreeProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public HuffmanTreeProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        Integer index = map.get(element);
+
+        if (index == null) {
+            ensureCapacity(size + 1);
+            map.put(element, size);
+            elements[size] = element;
+            weights[size] = weight;
+
+            if (size == 0) {
+                root = ~0;
+                leafParents[0] = NO_PARENT;
+            } else if (!dirty) {
+                insertLeaf(size);
+            }
+
+            ++size;
+            addToTotalWeight(weight);
+        } else {
+            // Account for the rounded sum actually stored.
+            addToTotalWeight(-weights[index]);
+            weights[index] += weight;
+            addToTotalWeight(weights[index]);
+            updateAncestors(~index, weight);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation presizes the internal arrays and the map before
+     * adding the elements. Once the additions exhaust the budget of in-place
+     * changes, the tree is no longer maintained, and is rebuilt once, on the
+     * next sampling.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        map = HashMaps.withCapacity(map, size + elements.length);
+        ensureCapacity(size + elements.length);
+        super.addAllValidated(elements, weights);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        Integer index = map.get(element);
+        return index == null ? 0.0 : weights[index];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation updates the path from the leaf of the element to
+     * the root.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        Integer index = map.get(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        double delta = weight - weights[index];
+        addToTotalWeight(weight);
+        addToTotalWeight(-weights[index]);
+        weights[index] = weight;
+        updateAncestors(~index, delta);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E sampleElement() {
+        checkNotEmpty(size);
+
+        if (dirty) {
+            rebuild();
+        }
+
+        return sample(random.nextDouble() * totalWeight);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+
+        if (count == 0) {
+            return;
+        }
+
+        checkNotEmpty(size);
+
+        if (dirty) {
+            rebuild();
+        }
+
+        double weight = totalWeight;
+
+        for (int i = 0; i < count; ++i) {
+            out[i] = sample(random.nextDouble() * weight);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation splices the leaf of the element out of the tree.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeElement(E element) {
+        Integer index = map.remove(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        addToTotalWeight(-weights[index]);
+
+        if (!dirty && size > 1) {
+            spliceOut(index);
+        }
+
+        --size;
+
+        if (index != size) {
+            // Move the last element to the hole.
+            elements[index] = elements[size];
+            weights[index] = weights[size];
+            map.put((E) elements[index], index);
+
+            if (!dirty) {
+                leafParents[index] = leafParents[size];
+                replaceChild(leafParents[index], ~size, ~index);
+            }
+        }
+
+        elements[size] = null;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        setTotalWeight(0.0);
+        changesSinceRebuild = 0;
+        dirty = false;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * size);
+
+        for (int i = 0; i < size; ++i) {
+            result.put((E) elements[i], weights[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Rebuilds the Huffman tree in <tt>O(n log n)</tt> time: the elements are
+     * sorted by weight, after which the two-queue method merges the two
+     * lightest subtrees at a time in linear time. There is no need to call
+     * this method explicitly, yet it allows moving the rebuild cost away from
+     * the next call to {@link #sampleElement()}.
+     */
+    public void rebuild() {
+        changesSinceRebuild = 0;
+        dirty = false;
+
+        if (size == 0) {
+            return;
+        }
+
+        if (size == 1) {
+            root = ~0;
+            leafParents[0] = NO_PARENT;
+            return;
+        }
+
+        int[] leaves = sortByWeight();
+        // The internal nodes are created in the ascending order of their
+        // weights, so that they form the second queue by themselves.
+        double[] nodeWeights = new double[size - 1];
+        int leafHead = 0;
+        int nodeHead = 0;
+
+        for (int node = 0; node < size - 1; ++node) {
+            double nodeWeight = 0.0;
+
+            for (int i = 0; i < 2; ++i) {
+                int child;
+                double childWeight;
+
+                if (nodeHead < node && (leafHead == size ||
+                        nodeWeights[nodeHead] < weights[leaves[leafHead]])) {
+                    childWeight = nodeWeights[nodeHead];
+                    child = nodeHead++;
+                } else {
+                    childWeight = weights[leaves[leafHead]];
+                    child = ~leaves[leafHead++];
+                }
+
+                if (i == 0) {
+                    leftChildren[node] = child;
+                    leftWeights[node] = childWeight;
+                } else {
+                    rightChildren[node] = child;
+                }
+
+                setParent(child, node);
+                nodeWeight += childWeight;
+            }
+
+            nodeWeights[node] = nodeWeight;
+        }
+
+        root = size - 2;
+        parents[root] = NO_PARENT;
+    }
+
+    /**
+     * Returns the indices of the elements in the ascending order of their
+     * weights. The bit patterns of positive doubles compare like the doubles
+     * themselves, so the index of each element replaces the lowest bits of
+     * its weight's pattern, and the resulting longs are sorted as primitives.
+     * Weights differing only in those bits may come out in either order,
+     * which costs a negligible deviation from the optimal shape, but never
+     * the exactness of the sampling.
+     *
+     * @return the sorted indices. Requires at least two elements.
+     */
+    private int[] sortByWeight() {
+        int indexBits = Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+        long indexMask = (1L << indexBits) - 1L;
+        long[] keys = new long[size];
+
+        for (int i = 0; i < size; ++i) {
+            keys[i] = (Double.doubleToRawLongBits(weights[i]) & ~indexMask) | i;
+        }
+
+        Arrays.sort(keys);
+        int[] result = new int[size];
+
+        for (int i = 0; i < size; ++i) {
+            result[i] = (int) (keys[i] & indexMask);
+        }
+
+        return result;
+    }
+
+    /**
+     * Descends from the root to the leaf whose weight range contains
+     * {@code value}.
+     *
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element of the leaf.
+     */
+    @SuppressWarnings("unchecked")
+    private E sample(double value) {
+        int node = root;
+
+        while (node >= 0) {
+            if (value < leftWeights[node]) {
+                node = leftChildren[node];
+            } else {
+                value -= leftWeights[node];
+                node = rightChildren[node];
+            }
+        }
+
+        return (E) elements[~node];
+    }
+
+    /**
+     * Adds {@code delta} to the weights of all the left subtrees containing
+     * the node {@code child}, and counts the change toward the next rebuild.
+     *
+     * @param child refers to the node whose weight changed.
+     * @param delta the weight change.
+     */
+    private void updateAncestors(int child, double delta) {
+        if (dirty) {
+            return;
+        }
+
+        int node = getParent(child);
+
+        while (node != NO_PARENT) {
+            if (leftChildren[node] == child) {
+                leftWeights[node] += delta;
+            }
+
+            child = node;
+            node = parents[node];
+        }
+
+        recordChange();
+    }
+
+    /**
+     * Attaches the leaf of the new element at the index {@code index}, which
+     * must equal {@code size}, to the tree. Starting from the root, the
+     * descent proceeds to the lighter child until it reaches a leaf or a
+     * subtree not heavier than the new element. That subtree is then replaced
+     * by a new internal node having the subtree and the new leaf as children.
+     * Requires at least one element already in the tree.
+     *
+     * @param index the index of the new element.
+     */
+    private void insertLeaf(int index) {
+        double weight = weights[index];
+        int child = root;
+        double childWeight = totalWeight;
+
+        while (child >= 0 && childWeight > weight) {
+            double leftWeight = leftWeights[child];
+            double rightWeight = childWeight - leftWeight;
+
+            if (leftWeight <= rightWeight) {
+                child = leftChildren[child];
+                childWeight = leftWeight;
+            } else {
+                child = rightChildren[child];
+                childWeight = rightWeight;
+            }
+        }
+
+        if (child < 0) {
+            childWeight = weights[~child];
+        }
+
+        int node = size - 1;
+        int parent = getParent(child);
+        replaceChild(parent, child, node);
+        parents[node] = parent;
+        leftChildren[node] = child;
+        rightChildren[node] = ~index;
+        leftWeights[node] = childWeight;
+        setParent(child, node);
+        leafParents[index] = node;
+        updateAncestors(node, weight);
+    }
+
+    /**
+     * Removes the leaf of the element at the index {@code index} from the
+     * tree by replacing its parent with its sibling. The last internal node is
+     * then moved to the slot of the parent, so that the internal nodes remain
+     * contiguous. Requires at least two elements.
+     *
+     * @param index the index of the element whose leaf to remove.
+     */
+    private void spliceOut(int index) {
+        int leaf = ~index;
+        updateAncestors(leaf, -weights[index]);
+        int parent = leafParents[index];
+        int sibling = leftChildren[parent] == leaf ?
+                      rightChildren[parent] :
+                      leftChildren[parent];
+        int grandparent = parents[parent];
+
+        replaceChild(grandparent, parent, sibling);
+        setParent(sibling, grandparent);
+
+        int lastNode = size - 2;
+
+        if (parent != lastNode) {
+            replaceChild(parents[lastNode], lastNode, parent);
+            setParent(leftChildren[lastNode], parent);
+            setParent(rightChildren[lastNode], parent);
+            leftChildren[parent] = leftChildren[lastNode];
+            rightChildren[parent] = rightChildren[lastNode];
+            leftWeights[parent] = leftWeights[lastNode];
+            parents[parent] = parents[lastNode];
+        }
+    }
+
+    /**
+     * Makes the internal node {@code node} refer to {@code newChild} in place
+     * of {@code oldChild}. If {@code node} is {@link #NO_PARENT}, the root is
+     * replaced instead.
+     */
+    private void replaceChild(int node, int oldChild, int newChild) {
+        if (node == NO_PARENT) {
+            root = newChild;
+        } else if (leftChildren[node] == oldChild) {
+            leftChildren[node] = newChild;
+        } else {
+            rightChildren[node] = newChild;
+        }
+    }
+
+    private int getParent(int child) {
+        return child >= 0 ? parents[child] : leafParents[~child];
+    }
+
+    private void setParent(int child, int parent) {
+        if (child >= 0) {
+            parents[child] = parent;
+        } else {
+            leafParents[~child] = parent;
+        }
+    }
+
+    /**
+     * Counts an in-place change and schedules a rebuild once the changes
+     * outnumber the elements.
+     */
+    private void recordChange() {
+        if (++changesSinceRebuild >= size) {
+            dirty = true;
+        }
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= elements.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity, 2 * elements.length);
+        elements      = Arrays.copyOf(elements, newCapacity);
+        weights       = Arrays.copyOf(weights, newCapacity);
+        leafParents   = Arrays.copyOf(leafParents, newCapacity);
+        leftChildren  = Arrays.copyOf(leftChildren, newCapacity);
+        rightChildren = Arrays.copyOf(rightChildren, newCapacity);
+        leftWeights   = Arrays.copyOf(leftWeights, newCapacity);
+        parents       = Arrays.copyOf(parents, newCapacity);
+    }
+
+    public static void main(String[] args) {
+        HuffmanTreeProbabilityDistribution<Integer> pd =
+                new HuffmanTreeProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
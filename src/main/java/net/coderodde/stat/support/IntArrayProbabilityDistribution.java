@@ -0,0 +1,229 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.coderodde.stat.AbstractIntProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution over {@code int} elements
+ * relying on parallel primitive arrays. The running times are as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized constant time</tt>,</td></tr>
+ * <tr><td><tt>sampleInt    </tt> </td>  <td><tt>worst case O(n)</tt>,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(1)</tt>.</td></tr>
+ * </table>
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class IntArrayProbabilityDistribution
+extends AbstractIntProbabilityDistribution {
+
+    /**
+     * The default capacity of the internal arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Maps each element to its index in the internal arrays.
+     */
+    private final IntIndexMap map = new IntIndexMap();
+
+    /**
+     * Stores the elements. Only the first {@code size} components are used.
+     */
+    private int[] elements = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Stores the weights of the elements.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY];
+
+    /**
+     * The number of elements in this probability distribution.
+     */
+    private int size;
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator.
+     */
+    public IntArrayProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    public IntArrayProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public IntArrayProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(int element, double weight) {
+        checkWeight(weight);
+        int index = map.get(element);
+
+        if (index == IntIndexMap.NO_INDEX) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+                weights  = Arrays.copyOf(weights, 2 * size);
+            }
+
+            map.put(element, size);
+            elements[size] = element;
+            weights[size] = weight;
+            ++size;
+            addToTotalWeight(weight);
+        } else {
+            // Account for the rounded sum actually stored.
+            addToTotalWeight(-weights[index]);
+            weights[index] += weight;
+            addToTotalWeight(weights[index]);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int sampleInt() {
+        checkNotEmpty(size);
+        return sample(random.nextDouble() * totalWeight);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleInts(int count, int[] out) {
+        checkSampleCount(count, out.length);
+
+        if (count == 0) {
+            return;
+        }
+
+        checkNotEmpty(size);
+        double weight = totalWeight;
+
+        for (int i = 0; i < count; ++i) {
+            out[i] = sample(random.nextDouble() * weight);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(int element) {
+        return map.get(element) != IntIndexMap.NO_INDEX;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(int element) {
+        int index = map.remove(element);
+
+        if (index == IntIndexMap.NO_INDEX) {
+            return false;
+        }
+
+        addToTotalWeight(-weights[index]);
+        --size;
+
+        if (index != size) {
+            // Move the last element to the hole.
+            elements[index] = elements[size];
+            weights[index] = weights[size];
+            map.put(elements[index], index);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the element whose weight range contains {@code value}.
+     *
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element containing the value.
+     */
+    private int sample(double value) {
+        int lastIndex = size - 1;
+        int index = 0;
+
+        // Round-off errors may let the value exceed the last upper bound, in
+        // which case the last element is used.
+        while (value >= weights[index] && index < lastIndex) {
+            value -= weights[index++];
+        }
+
+        return elements[index];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        size = 0;
+        setTotalWeight(0.0);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public static void main(String[] args) {
+        IntArrayProbabilityDistribution pd =
+                new IntArrayProbabilityDistribution();
+
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 2.0);
+        pd.addElement(3, 3.0);
+
+        int[] count = new int[4];
+
+        for (int i = 0; i < 1000; ++i) {
+            count[pd.sampleInt()]++;
+        }
+
+        System.out.println(Arrays.toString(count));
+    }
+}
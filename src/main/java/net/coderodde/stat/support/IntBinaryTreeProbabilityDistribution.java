@@ -0,0 +1,299 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.coderodde.stat.AbstractIntProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution over {@code int} elements
+ * relying on the implicit leaf-and-relay sum tree of
+ * {@link ArrayBinaryTreeProbabilityDistribution}. It allows <tt>O(log n)</tt>
+ * worst case time for adding, removing and sampling an element.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class IntBinaryTreeProbabilityDistribution
+extends AbstractIntProbabilityDistribution {
+
+    /**
+     * The default number of nodes the internal arrays can accommodate.
+     */
+    private static final int DEFAULT_CAPACITY = 15;
+
+    /**
+     * Maps each element to the index of its leaf node.
+     */
+    private final IntIndexMap map = new IntIndexMap();
+
+    /**
+     * {@code weights[i]} is the weight of the element if the node {@code i} is
+     * a leaf, and the sum of the weights of its children if it is a relay
+     * node.
+     */
+    private double[] weights = new double[DEFAULT_CAPACITY];
+
+    /**
+     * {@code elements[i]} is the element of the node {@code i} if it is a
+     * leaf. The components of relay nodes are not used.
+     */
+    private int[] elements = new int[DEFAULT_CAPACITY];
+
+    /**
+     * The number of elements, or equivalently, the number of leaf nodes.
+     */
+    private int size;
+
+    /**
+     * Constructs this probability distribution using a default random number
+     * generator.
+     */
+    public IntBinaryTreeProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator to use.
+     */
+    public IntBinaryTreeProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public IntBinaryTreeProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(int element, double weight) {
+        checkWeight(weight);
+        int node = map.get(element);
+
+        if (node == IntIndexMap.NO_INDEX) {
+            insert(element, weight);
+        } else {
+            weights[node] += weight;
+            updateMetadata(node);
+        }
+
+        totalWeight = weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int sampleInt() {
+        checkNotEmpty(size);
+        return sample(totalWeight * random.nextDouble());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleInts(int count, int[] out) {
+        checkSampleCount(count, out.length);
+
+        if (count == 0) {
+            return;
+        }
+
+        checkNotEmpty(size);
+        double weight = totalWeight;
+
+        for (int i = 0; i < count; ++i) {
+            out[i] = sample(random.nextDouble() * weight);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(int element) {
+        return map.get(element) != IntIndexMap.NO_INDEX;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(int element) {
+        int node = map.remove(element);
+
+        if (node == IntIndexMap.NO_INDEX) {
+            return false;
+        }
+
+        delete(node);
+        totalWeight = size == 0 ? 0.0 : weights[0];
+        return true;
+    }
+
+    /**
+     * Descends from the root to the leaf whose weight range contains
+     * {@code value}.
+     *
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element of the leaf.
+     */
+    private int sample(double value) {
+        int firstLeaf = size - 1;
+        int node = 0;
+
+        while (node < firstLeaf) {
+            int leftChild = 2 * node + 1;
+
+            if (value < weights[leftChild]) {
+                node = leftChild;
+            } else {
+                value -= weights[leftChild];
+                node = leftChild + 1;
+            }
+        }
+
+        return elements[node];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        size = 0;
+        totalWeight = 0.0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Inserts a new leaf by bypassing the first leaf with a relay node.
+     *
+     * @param element the element to insert.
+     * @param weight  the weight of the element.
+     */
+    private void insert(int element, double weight) {
+        if (size == 0) {
+            setLeaf(0, element, weight);
+            size = 1;
+            return;
+        }
+
+        ensureCapacity(2 * size + 1);
+        int leafNodeToBypass = size - 1;
+        int leftChild = 2 * leafNodeToBypass + 1;
+
+        setLeaf(leftChild,
+                elements[leafNodeToBypass],
+                weights[leafNodeToBypass]);
+
+        setLeaf(leftChild + 1, element, weight);
+        ++size;
+        updateMetadata(leftChild);
+    }
+
+    /**
+     * Removes the leaf {@code node} by moving the last leaf to the hole and
+     * collapsing the last two leaves into their parent.
+     *
+     * @param node the leaf node to delete.
+     */
+    private void delete(int node) {
+        if (size == 1) {
+            size = 0;
+            return;
+        }
+
+        int lastLeaf = 2 * size - 2;
+
+        if (node != lastLeaf) {
+            setLeaf(node, elements[lastLeaf], weights[lastLeaf]);
+            updateMetadata(node);
+        }
+
+        int sibling = lastLeaf - 1;
+        int parent = (sibling - 1) >> 1;
+        setLeaf(parent, elements[sibling], weights[sibling]);
+        --size;
+        updateMetadata(parent);
+    }
+
+    private void setLeaf(int node, int element, double weight) {
+        elements[node] = element;
+        weights[node] = weight;
+        map.put(element, node);
+    }
+
+    /**
+     * Recomputes the weights of all the predecessors of the node {@code node}
+     * from the weights of their children.
+     *
+     * @param node the node whose predecessors to update.
+     */
+    private void updateMetadata(int node) {
+        while (node > 0) {
+            node = (node - 1) >> 1;
+            int leftChild = 2 * node + 1;
+            weights[node] = weights[leftChild] + weights[leftChild + 1];
+        }
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= weights.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity, 2 * weights.length + 1);
+        weights  = Arrays.copyOf(weights, newCapacity);
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    public static void main(String[] args) {
+        IntBinaryTreeProbabilityDistribution pd =
+                new IntBinaryTreeProbabilityDistribution();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            int myint = pd.sampleInt();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
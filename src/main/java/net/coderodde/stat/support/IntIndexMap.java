@@ -0,0 +1,174 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an open-addressing hash map from {@code int} keys to
+ * non-negative {@code int} indices. It uses linear probing and deletes by
+ * shifting the subsequent entries of the probe run backwards, so there are no
+ * tombstones, and no operation allocates except for growing the table.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+final class IntIndexMap {
+
+    /**
+     * The value returned for missing keys. Also marks the empty table slots.
+     */
+    static final int NO_INDEX = -1;
+
+    /**
+     * The default capacity of the table. Must be a power of two.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The keys of the table.
+     */
+    private int[] keys;
+
+    /**
+     * The indices mapped to the keys. {@code NO_INDEX} marks an empty slot.
+     */
+    private int[] indices;
+
+    /**
+     * The number of mappings in this map.
+     */
+    private int size;
+
+    /**
+     * The bit mask used to map hash values to table slots.
+     */
+    private int mask;
+
+    IntIndexMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the index mapped to the key {@code key}, or {@code NO_INDEX} if
+     * there is no such.
+     *
+     * @param key the key to query.
+     * @return the index of the key.
+     */
+    int get(int key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int index = indices[slot];
+
+            if (index == NO_INDEX || keys[slot] == key) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Maps the key {@code key} to the index {@code index}, replacing the
+     * previous mapping if there is one.
+     *
+     * @param key   the key.
+     * @param index the index to map to. Must be non-negative.
+     */
+    void put(int key, int index) {
+        int slot = slot(key);
+
+        while (indices[slot] != NO_INDEX) {
+            if (keys[slot] == key) {
+                indices[slot] = index;
+                return;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        indices[slot] = index;
+
+        // Keep the load factor at most one half.
+        if (++size > (mask + 1) >>> 1) {
+            grow();
+        }
+    }
+
+    /**
+     * Removes the mapping of the key {@code key}.
+     *
+     * @param key the key to remove.
+     * @return the index mapped to the key, or {@code NO_INDEX} if the key was
+     *         not present.
+     */
+    int remove(int key) {
+        int slot = slot(key);
+
+        while (indices[slot] != NO_INDEX && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        int removedIndex = indices[slot];
+
+        if (removedIndex == NO_INDEX) {
+            return NO_INDEX;
+        }
+
+        // Shift back every subsequent entry of the probe run that would
+        // become unreachable because of the hole.
+        int hole = slot;
+
+        for (int next = (hole + 1) & mask;
+                indices[next] != NO_INDEX;
+                next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                indices[hole] = indices[next];
+                hole = next;
+            }
+        }
+
+        indices[hole] = NO_INDEX;
+        --size;
+        return removedIndex;
+    }
+
+    /**
+     * Removes all the mappings.
+     */
+    void clear() {
+        Arrays.fill(indices, NO_INDEX);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9e3779b9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        indices = new int[capacity];
+        Arrays.fill(indices, NO_INDEX);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldIndices = indices;
+        allocate(2 * oldKeys.length);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldIndices[i] != NO_INDEX) {
+                int slot = slot(oldKeys[i]);
+
+                while (indices[slot] != NO_INDEX) {
+                    slot = (slot + 1) & mask;
+                }
+
+                keys[slot] = oldKeys[i];
+                indices[slot] = oldIndices[i];
+            }
+        }
+    }
+}
@@ -2,9 +2,11 @@ package net.coderodde.stat.support;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
 import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
 
 /**
  * This class implements a probability distribution relying on a linked list.
@@ -30,6 +32,12 @@ import net.coderodde.stat.AbstractProbabilityDistribution;
 public class LinkedListProbabilityDistribution<E>
 extends AbstractProbabilityDistribution<E> {
 
+    /**
+     * The smallest batch size for which the batch sampling sweeps the list 
+     * once instead of scanning it for each draw.
+     */
+    private static final int MINIMUM_SWEEP_SAMPLE_COUNT = 8;
+
     private static final class LinkedListNode<E> {
 
         private final E element;
@@ -74,7 +82,7 @@ extends AbstractProbabilityDistribution<E> {
     /**
      * This map maps the elements to their respective linked list nodes.
      */
-    private final Map<E, LinkedListNode<E>> map = new HashMap<>();
+    private Map<E, LinkedListNode<E>> map = new HashMap<>();
 
     /**
      * Stores the very first linked list node in this probability distribution.
@@ -103,6 +111,15 @@ extends AbstractProbabilityDistribution<E> {
         super(random);
     }
 
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public LinkedListProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -123,11 +140,54 @@ extends AbstractProbabilityDistribution<E> {
             
             linkedListTail = node;
             map.put(element, node);
+            addToTotalWeight(weight);
         } else {
+            // Account for the rounded sum actually stored.
+            addToTotalWeight(-node.getWeight());
             node.setWeight(node.getWeight() + weight);
+            addToTotalWeight(node.getWeight());
         }
         
-        totalWeight += weight;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation presizes the map before adding the elements.
+     */
+    @Override
+    protected void addAllValidated(E[] elements, double[] weights) {
+        map = HashMaps.withCapacity(map, map.size() + elements.length);
+        super.addAllValidated(elements, weights);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        LinkedListNode<E> entry = map.get(element);
+        return entry == null ? 0.0 : entry.getWeight();
+    }
+
+    /**
+     * {@inheritDoc }
+     * 
+     * <p>This implementation runs in constant time.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        LinkedListNode<E> entry = map.get(element);
+        
+        if (entry == null) {
+            return false;
+        }
+        
+        addToTotalWeight(weight);
+        addToTotalWeight(-entry.getWeight());
+        entry.setWeight(weight);
         return true;
     }
 
@@ -137,19 +197,98 @@ extends AbstractProbabilityDistribution<E> {
     @Override
     public E sampleElement() {
         checkNotEmpty(map.size());
-        double value = random.nextDouble() * totalWeight;
+        return sample(random.nextDouble() * totalWeight);
+    }
 
-        for (LinkedListNode<E> node = linkedListHead;
-                node != null;
-                node = node.getNextLinkedListNode()) {
-            if (value < node.getWeight()) {
-                return node.getElement();
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void sampleElements(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty(map.size());
+        
+        if (count < MINIMUM_SWEEP_SAMPLE_COUNT) {
+            double weight = totalWeight;
+
+            for (int i = 0; i < count; ++i) {
+                out[i] = sample(random.nextDouble() * weight);
+            }
+        } else {
+            sweep(createSortedRandomValues(count), out);
+            shuffle(out, count);
+        }
+    }
+    
+    /**
+     * Samples {@code count} elements independently and stores them in 
+     * {@code out[0], ..., out[count - 1]} in the order in which they appear in
+     * the linked list. The elements are sampled in a single sweep over the 
+     * list, so this method runs in <tt>O(n + count)</tt> time. Since the output
+     * is sorted by list position, its components are not exchangeable; use
+     * {@link #sampleElements(int, Object[])} whenever the order matters.
+     * 
+     * @param count the number of elements to sample.
+     * @param out   the array to which to store the sampled elements.
+     */
+    public void sampleElementsInListOrder(int count, E[] out) {
+        checkSampleCount(count, out.length);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        checkNotEmpty(map.size());
+        sweep(createSortedRandomValues(count), out);
+    }
+    
+    /**
+     * Maps each of the ascending values {@code sortedValues} to the element 
+     * whose weight range contains it, and stores the elements in {@code out}.
+     * 
+     * @param sortedValues the values within <tt>[0, totalWeight)</tt> in 
+     *                     ascending order.
+     * @param out          the array to which to store the elements.
+     */
+    private void sweep(double[] sortedValues, E[] out) {
+        LinkedListNode<E> node = linkedListHead;
+        double upperBound = node.getWeight();
+        
+        for (int i = 0; i < sortedValues.length; ++i) {
+            // Round-off errors may let the value exceed the last upper bound,
+            // in which case the last element is used.
+            while (sortedValues[i] >= upperBound && node != linkedListTail) {
+                node = node.getNextLinkedListNode();
+                upperBound += node.getWeight();
             }
+            
+            out[i] = node.getElement();
+        }
+    }
 
+    /**
+     * Returns the element whose weight range contains {@code value}.
+     * 
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the element containing the value.
+     */
+    private E sample(double value) {
+        LinkedListNode<E> node = linkedListHead;
+
+        // Round-off errors may let the value exceed the last upper bound, in
+        // which case the last element is used.
+        while (value >= node.getWeight() && 
+                node.getNextLinkedListNode() != null) {
             value -= node.getWeight();
+            node = node.getNextLinkedListNode();
         }
 
-        throw new IllegalStateException("Should not get here.");
+        return node.getElement();
     }
 
     /**
@@ -171,7 +310,7 @@ extends AbstractProbabilityDistribution<E> {
             return false;
         }
 
-        totalWeight -= node.getWeight();
+        addToTotalWeight(-node.getWeight());
         unlink(node);
         return true;
     }
@@ -181,7 +320,7 @@ extends AbstractProbabilityDistribution<E> {
      */
     @Override
     public void clear() {
-        totalWeight = 0.0;
+        setTotalWeight(0.0);
         map.clear();
         linkedListHead = null;
         linkedListTail = null;
@@ -203,6 +342,22 @@ extends AbstractProbabilityDistribution<E> {
         return map.size();
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>(2 * map.size());
+        
+        for (LinkedListNode<E> node = linkedListHead;
+                node != null;
+                node = node.getNextLinkedListNode()) {
+            result.put(node.getElement(), node.getWeight());
+        }
+        
+        return result;
+    }
+
     private void unlink(LinkedListNode<E> node) {
         LinkedListNode<E> left  = node.getPreviousLinkedListNode();
         LinkedListNode<E> right = node.getNextLinkedListNode();
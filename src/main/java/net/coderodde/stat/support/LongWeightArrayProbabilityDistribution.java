@@ -0,0 +1,246 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractLongWeightProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution with {@code long} weights
+ * relying on parallel arrays of elements and weights. The running times are
+ * as follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized constant time</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt> </td>  <td><tt>O(n)</tt>,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(1)</tt>.</td></tr>
+ * </table>
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class LongWeightArrayProbabilityDistribution<E>
+extends AbstractLongWeightProbabilityDistribution<E> {
+
+    /**
+     * The default capacity of the internal arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Maps each element to its index in the internal arrays.
+     */
+    private final Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * Stores the elements. Only the first {@code size} components are used.
+     */
+    private Object[] elements = new Object[DEFAULT_CAPACITY];
+
+    /**
+     * Stores the weights of the elements.
+     */
+    private long[] weights = new long[DEFAULT_CAPACITY];
+
+    /**
+     * The number of elements in this probability distribution.
+     */
+    private int size;
+
+    /**
+     * Constructs this probability distribution with default random number
+     * generator.
+     */
+    public LongWeightArrayProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution with given random number
+     * generator.
+     *
+     * @param random the random number generator.
+     */
+    public LongWeightArrayProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public LongWeightArrayProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, long weight) {
+        checkWeight(weight);
+        checkTotalWeightIncrease(weight);
+        Integer index = map.get(element);
+
+        if (index == null) {
+            ensureCapacity(size + 1);
+            map.put(element, size);
+            elements[size] = element;
+            weights[size] = weight;
+            ++size;
+        } else {
+            weights[index] += weight;
+        }
+
+        totalWeight += weight;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getWeight(E element) {
+        Integer index = map.get(element);
+        return index == null ? 0L : weights[index];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation runs in constant time.
+     */
+    @Override
+    public boolean setWeight(E element, long weight) {
+        checkWeight(weight);
+        Integer index = map.get(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        checkTotalWeightIncrease(weight - weights[index]);
+        totalWeight += weight - weights[index];
+        weights[index] = weight;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E sampleElement() {
+        checkNotEmpty(size);
+        long value = nextRandomValue();
+        int index = 0;
+
+        // The sums are exact, so that the value always falls within the range
+        // of some element.
+        while (value >= weights[index]) {
+            value -= weights[index++];
+        }
+
+        return (E) elements[index];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeElement(E element) {
+        Integer index = map.remove(element);
+
+        if (index == null) {
+            return false;
+        }
+
+        totalWeight -= weights[index];
+        --size;
+
+        if (index != size) {
+            // Move the last element to the hole.
+            elements[index] = elements[size];
+            weights[index] = weights[size];
+            map.put((E) elements[index], index);
+        }
+
+        elements[size] = null;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        totalWeight = 0L;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= elements.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity, 2 * elements.length);
+        elements = Arrays.copyOf(elements, newCapacity);
+        weights  = Arrays.copyOf(weights, newCapacity);
+    }
+
+    public static void main(String[] args) {
+        LongWeightArrayProbabilityDistribution<Integer> pd =
+                new LongWeightArrayProbabilityDistribution<>();
+
+        pd.addElement(0, 1L);
+        pd.addElement(1, 1L);
+        pd.addElement(2, 1L);
+        pd.addElement(3, 3L);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
@@ -0,0 +1,317 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractLongWeightProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a probability distribution with {@code long} weights
+ * relying on the implicit leaf-and-relay sum tree of
+ * {@link ArrayBinaryTreeProbabilityDistribution}. It allows <tt>O(log n)</tt>
+ * worst case time for adding, removing and sampling an element. Since the
+ * weights of the relay nodes are exact sums, the descent compares integers
+ * only.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class LongWeightBinaryTreeProbabilityDistribution<E>
+extends AbstractLongWeightProbabilityDistribution<E> {
+
+    /**
+     * The default number of nodes the internal arrays can accommodate.
+     */
+    private static final int DEFAULT_CAPACITY = 15;
+
+    /**
+     * Maps each element to the index of its leaf node.
+     */
+    private final Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * {@code weights[i]} is the weight of the element if the node {@code i} is
+     * a leaf, and the sum of the weights of its children if it is a relay
+     * node.
+     */
+    private long[] weights = new long[DEFAULT_CAPACITY];
+
+    /**
+     * {@code elements[i]} is the element of the node {@code i} if it is a
+     * leaf. The components of relay nodes are {@code null}.
+     */
+    private Object[] elements = new Object[DEFAULT_CAPACITY];
+
+    /**
+     * The number of elements, or equivalently, the number of leaf nodes.
+     */
+    private int size;
+
+    /**
+     * Constructs this probability distribution using a default random number
+     * generator.
+     */
+    public LongWeightBinaryTreeProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator to use.
+     */
+    public LongWeightBinaryTreeProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public LongWeightBinaryTreeProbabilityDistribution(RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, long weight) {
+        checkWeight(weight);
+        checkTotalWeightIncrease(weight);
+        Integer node = map.get(element);
+
+        if (node == null) {
+            insert(element, weight);
+        } else {
+            weights[node] += weight;
+            updateMetadata(node);
+        }
+
+        totalWeight = weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getWeight(E element) {
+        Integer node = map.get(element);
+        return node == null ? 0L : weights[node];
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation updates the leaf and its predecessors in
+     * <tt>O(log n)</tt> time.
+     */
+    @Override
+    public boolean setWeight(E element, long weight) {
+        checkWeight(weight);
+        Integer node = map.get(element);
+
+        if (node == null) {
+            return false;
+        }
+
+        checkTotalWeightIncrease(weight - weights[node]);
+        weights[node] = weight;
+        updateMetadata(node);
+        totalWeight = weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E sampleElement() {
+        checkNotEmpty(size);
+        long value = nextRandomValue();
+        int firstLeaf = size - 1;
+        int node = 0;
+
+        while (node < firstLeaf) {
+            int leftChild = 2 * node + 1;
+
+            if (value < weights[leftChild]) {
+                node = leftChild;
+            } else {
+                value -= weights[leftChild];
+                node = leftChild + 1;
+            }
+        }
+
+        return (E) elements[node];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        Integer node = map.remove(element);
+
+        if (node == null) {
+            return false;
+        }
+
+        delete(node);
+        totalWeight = size == 0 ? 0L : weights[0];
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(elements, 0, Math.max(0, 2 * size - 1), null);
+        size = 0;
+        totalWeight = 0L;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Inserts a new leaf by bypassing the first leaf with a relay node.
+     *
+     * @param element the element to insert.
+     * @param weight  the weight of the element.
+     */
+    @SuppressWarnings("unchecked")
+    private void insert(E element, long weight) {
+        if (size == 0) {
+            setLeaf(0, element, weight);
+            size = 1;
+            return;
+        }
+
+        ensureCapacity(2 * size + 1);
+        int leafNodeToBypass = size - 1;
+        int leftChild = 2 * leafNodeToBypass + 1;
+
+        setLeaf(leftChild,
+                (E) elements[leafNodeToBypass],
+                weights[leafNodeToBypass]);
+
+        elements[leafNodeToBypass] = null;
+        setLeaf(leftChild + 1, element, weight);
+        ++size;
+        updateMetadata(leftChild);
+    }
+
+    /**
+     * Removes the leaf {@code node} by moving the last leaf to the hole and
+     * collapsing the last two leaves into their parent.
+     *
+     * @param node the leaf node to delete.
+     */
+    @SuppressWarnings("unchecked")
+    private void delete(int node) {
+        if (size == 1) {
+            elements[0] = null;
+            size = 0;
+            return;
+        }
+
+        int lastLeaf = 2 * size - 2;
+
+        if (node != lastLeaf) {
+            setLeaf(node, (E) elements[lastLeaf], weights[lastLeaf]);
+            updateMetadata(node);
+        }
+
+        int sibling = lastLeaf - 1;
+        int parent = (sibling - 1) >> 1;
+        setLeaf(parent, (E) elements[sibling], weights[sibling]);
+        elements[sibling] = null;
+        elements[lastLeaf] = null;
+        --size;
+        updateMetadata(parent);
+    }
+
+    private void setLeaf(int node, E element, long weight) {
+        elements[node] = element;
+        weights[node] = weight;
+        map.put(element, node);
+    }
+
+    /**
+     * Recomputes the weights of all the predecessors of the node {@code node}
+     * from the weights of their children.
+     *
+     * @param node the node whose predecessors to update.
+     */
+    private void updateMetadata(int node) {
+        while (node > 0) {
+            node = (node - 1) >> 1;
+            int leftChild = 2 * node + 1;
+            weights[node] = weights[leftChild] + weights[leftChild + 1];
+        }
+    }
+
+    private void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= weights.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity, 2 * weights.length + 1);
+        weights  = Arrays.copyOf(weights, newCapacity);
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    public static void main(String[] args) {
+        LongWeightBinaryTreeProbabilityDistribution<Integer> pd =
+                new LongWeightBinaryTreeProbabilityDistribution<>();
+
+        pd.addElement(0, 1L);
+        pd.addElement(1, 1L);
+        pd.addElement(2, 1L);
+        pd.addElement(3, 3L);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
@@ -0,0 +1,44 @@
+package net.coderodde.stat.support;
+
+/**
+ * This class provides helpers for storing the {@code null} element in the
+ * concurrent data structures, such as
+ * {@link java.util.concurrent.ConcurrentHashMap}, that reject {@code null}
+ * keys or reserve {@code null} for absent values. The {@code null} element is
+ * stored as a private sentinel object instead.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+final class NullElements {
+
+    /**
+     * Stands for the {@code null} element.
+     */
+    private static final Object NULL_ELEMENT = new Object();
+
+    private NullElements() {}
+
+    /**
+     * Returns the key under which the element {@code element} is stored.
+     *
+     * @param element the element, possibly {@code null}.
+     * @return the sentinel if {@code element} is {@code null}, and
+     *         {@code element} itself otherwise.
+     */
+    static Object mask(Object element) {
+        return element == null ? NULL_ELEMENT : element;
+    }
+
+    /**
+     * Returns the element stored under the key {@code key}.
+     *
+     * @param <E> the element type.
+     * @param key the key obtained from {@link #mask(Object)}.
+     * @return the element.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> E unmask(Object key) {
+        return key == NULL_ELEMENT ? null : (E) key;
+    }
+}
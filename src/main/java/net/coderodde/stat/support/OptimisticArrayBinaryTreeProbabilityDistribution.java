@@ -0,0 +1,574 @@
+package net.coderodde.stat.support;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a thread-safe variant of
+ * {@link ArrayBinaryTreeProbabilityDistribution} for workloads dominated by
+ * sampling. The tree is guarded by a sequence lock: writers serialize on a
+ * lock and increment a sequence number before and after each change, so that
+ * the sequence number is odd while a change is in progress. Readers never
+ * write to shared memory: a reader descends the tree optimistically and
+ * retries only if the sequence number was odd or changed meanwhile.
+ *
+ * <p>The tree nodes live in atomic arrays, so that all the reads by the
+ * readers are volatile reads. This makes each reader observe a consistent tree
+ * whenever the sequence number did not change. The running times are as
+ * follows:
+ *
+ * <table>
+ * <tr><td>Method</td>  <td>Complexity</td></tr>
+ * <tr><td><tt>addElement   </tt></td>
+ *     <td><tt>amortized O(log n)</tt>,</td></tr>
+ * <tr><td><tt>sampleElement</tt> </td>
+ *     <td><tt>O(log n)</tt> per attempt,</td></tr>
+ * <tr><td><tt>removeElement</tt> </td>  <td><tt>O(log n)</tt>.</td></tr>
+ * </table>
+ *
+ * <p>As in the other probability distributions, {@code null} is a valid
+ * element. It is stored in the map and in the leaves under a private sentinel
+ * key, so that a {@code null} leaf read by a reader always means that a
+ * writer intervened.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class OptimisticArrayBinaryTreeProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default number of nodes the tree storage can accommodate.
+     */
+    private static final int DEFAULT_CAPACITY = 15;
+
+    /**
+     * Holds the nodes of the tree in the heap layout. See
+     * {@link ArrayBinaryTreeProbabilityDistribution} for details.
+     */
+    private static final class Storage {
+
+        /**
+         * The raw long bits of the node weights.
+         */
+        final AtomicLongArray weights;
+
+        /**
+         * The elements of the leaf nodes, masked by
+         * {@link NullElements#mask(Object)}. The components of the relay
+         * nodes are {@code null}.
+         */
+        final AtomicReferenceArray<Object> elements;
+
+        Storage(int capacity) {
+            this.weights = new AtomicLongArray(capacity);
+            this.elements = new AtomicReferenceArray<>(capacity);
+        }
+
+        int capacity() {
+            return weights.length();
+        }
+
+        double getWeight(int node) {
+            return Double.longBitsToDouble(weights.get(node));
+        }
+
+        void setWeight(int node, double weight) {
+            weights.set(node, Double.doubleToRawLongBits(weight));
+        }
+    }
+
+    /**
+     * Maps each element, masked by {@link NullElements#mask(Object)}, to the
+     * index of its leaf node. Modified only by the writers.
+     */
+    private final Map<Object, Integer> map = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the writers.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The sequence number. Odd while a writer is changing the tree.
+     */
+    private volatile long sequence;
+
+    /**
+     * The current tree storage.
+     */
+    private volatile Storage storage = new Storage(DEFAULT_CAPACITY);
+
+    /**
+     * The number of elements, or equivalently, the number of leaf nodes.
+     */
+    private volatile int size;
+
+    /**
+     * Constructs this probability distribution using a default random number
+     * generator.
+     */
+    public OptimisticArrayBinaryTreeProbabilityDistribution() {
+        this(RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator to use.
+     */
+    public OptimisticArrayBinaryTreeProbabilityDistribution(Random random) {
+        super(random);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random source.
+     *
+     * @param random the random source.
+     */
+    public OptimisticArrayBinaryTreeProbabilityDistribution(
+            RandomSource random) {
+        super(random);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        beginWrite();
+
+        try {
+            Object key = NullElements.mask(element);
+            Integer node = map.get(key);
+
+            if (node == null) {
+                insert(key, weight);
+            } else {
+                Storage s = storage;
+                s.setWeight(node, s.getWeight(node) + weight);
+                updateMetadata(s, node);
+            }
+
+            totalWeight = storage.getWeight(0);
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        writeLock.lock();
+
+        try {
+            Integer node = map.get(NullElements.mask(element));
+            return node == null ? 0.0 : storage.getWeight(node);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation runs in <tt>O(log n)</tt> time.
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        beginWrite();
+
+        try {
+            Integer node = map.get(NullElements.mask(element));
+
+            if (node == null) {
+                return false;
+            }
+
+            Storage s = storage;
+            s.setWeight(node, weight);
+            updateMetadata(s, node);
+            totalWeight = s.getWeight(0);
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation reads and writes the weight within a single
+     * write.
+     */
+    @Override
+    public boolean adjustWeight(E element, double delta) {
+        beginWrite();
+
+        try {
+            Integer node = map.get(NullElements.mask(element));
+
+            if (node == null) {
+                return false;
+            }
+
+            Storage s = storage;
+            double weight = s.getWeight(node) + delta;
+            checkWeight(weight);
+            s.setWeight(node, weight);
+            updateMetadata(s, node);
+            totalWeight = s.getWeight(0);
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E sampleElement() {
+        double u = random.nextDouble();
+
+        while (true) {
+            long stamp = sequence;
+
+            if ((stamp & 1L) != 0L) {
+                // A writer is busy.
+                Thread.yield();
+                continue;
+            }
+
+            Storage s = storage;
+            int n = size;
+
+            if (n == 0) {
+                if (sequence == stamp) {
+                    checkNotEmpty(n);
+                }
+
+                continue;
+            }
+
+            int leaf = sampleLeaf(s, n, u * s.getWeight(0));
+
+            if (leaf >= 0) {
+                Object element = s.elements.get(leaf);
+
+                if (sequence == stamp && element != null) {
+                    return NullElements.unmask(element);
+                }
+            }
+
+            // A writer intervened. Try again.
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return map.containsKey(NullElements.mask(element));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        beginWrite();
+
+        try {
+            Integer node = map.remove(NullElements.mask(element));
+
+            if (node == null) {
+                return false;
+            }
+
+            delete(node);
+            totalWeight = size == 0 ? 0.0 : storage.getWeight(0);
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        beginWrite();
+
+        try {
+            map.clear();
+            storage = new Storage(DEFAULT_CAPACITY);
+            size = 0;
+            totalWeight = 0.0;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getTotalWeight() {
+        while (true) {
+            long stamp = sequence;
+
+            if ((stamp & 1L) != 0L) {
+                Thread.yield();
+                continue;
+            }
+
+            double weight = size == 0 ? 0.0 : storage.getWeight(0);
+
+            if (sequence == stamp) {
+                return weight;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        writeLock.lock();
+
+        try {
+            Storage s = storage;
+            Map<E, Double> result = new LinkedHashMap<>(2 * size);
+
+            for (int node = size - 1; node < 2 * size - 1; ++node) {
+                result.put(NullElements.<E>unmask(s.elements.get(node)),
+                           s.getWeight(node));
+            }
+
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Descends from the root to the leaf whose weight range contains
+     * {@code value}. Since a writer may change the tree under the descent, the
+     * indices are checked against the storage bounds.
+     *
+     * @param s     the tree storage.
+     * @param n     the number of leaves.
+     * @param value a value within <tt>[0, totalWeight)</tt>.
+     * @return the index of the leaf, or <tt>-1</tt> if the descent ran out of
+     *         the storage.
+     */
+    private static int sampleLeaf(Storage s, int n, double value) {
+        int firstLeaf = n - 1;
+        int capacity = s.capacity();
+        int node = 0;
+
+        while (node < firstLeaf) {
+            int leftChild = 2 * node + 1;
+
+            if (leftChild + 1 >= capacity) {
+                return -1;
+            }
+
+            double leftWeight = s.getWeight(leftChild);
+
+            if (value < leftWeight) {
+                node = leftChild;
+            } else {
+                value -= leftWeight;
+                node = leftChild + 1;
+            }
+        }
+
+        return node < capacity ? node : -1;
+    }
+
+    /**
+     * Acquires the write lock and makes the sequence number odd.
+     */
+    private void beginWrite() {
+        writeLock.lock();
+        sequence = sequence + 1L;
+    }
+
+    /**
+     * Makes the sequence number even and releases the write lock.
+     */
+    private void endWrite() {
+        sequence = sequence + 1L;
+        writeLock.unlock();
+    }
+
+    /**
+     * Inserts a new leaf by bypassing the first leaf with a relay node, as in
+     * {@link ArrayBinaryTreeProbabilityDistribution}.
+     *
+     * @param key    the masked element to insert.
+     * @param weight the weight of the element.
+     */
+    private void insert(Object key, double weight) {
+        if (size == 0) {
+            Storage s = ensureCapacity(1);
+            setLeaf(s, 0, key, weight);
+            size = 1;
+            return;
+        }
+
+        Storage s = ensureCapacity(2 * size + 1);
+        int leafNodeToBypass = size - 1;
+        int leftChild = 2 * leafNodeToBypass + 1;
+
+        setLeaf(s,
+                leftChild,
+                s.elements.get(leafNodeToBypass),
+                s.getWeight(leafNodeToBypass));
+
+        setLeaf(s, leftChild + 1, key, weight);
+        s.elements.set(leafNodeToBypass, null);
+        ++size;
+        updateMetadata(s, leftChild);
+    }
+
+    /**
+     * Removes the leaf {@code node} by moving the last leaf to the hole and
+     * collapsing the last two leaves into their parent, as in
+     * {@link ArrayBinaryTreeProbabilityDistribution}.
+     *
+     * @param node the leaf node to delete.
+     */
+    private void delete(int node) {
+        Storage s = storage;
+
+        if (size == 1) {
+            s.elements.set(0, null);
+            size = 0;
+            return;
+        }
+
+        int lastLeaf = 2 * size - 2;
+
+        if (node != lastLeaf) {
+            setLeaf(s, node, s.elements.get(lastLeaf), s.getWeight(lastLeaf));
+            updateMetadata(s, node);
+        }
+
+        int sibling = lastLeaf - 1;
+        int parent = (sibling - 1) >> 1;
+        setLeaf(s, parent, s.elements.get(sibling), s.getWeight(sibling));
+        s.elements.set(sibling, null);
+        s.elements.set(lastLeaf, null);
+        --size;
+        updateMetadata(s, parent);
+    }
+
+    private void setLeaf(Storage s, int node, Object key, double weight) {
+        s.elements.set(node, key);
+        s.setWeight(node, weight);
+        map.put(key, node);
+    }
+
+    /**
+     * Recomputes the weights of all the predecessors of the node {@code node}
+     * from the weights of their children.
+     *
+     * @param s    the tree storage.
+     * @param node the node whose predecessors to update.
+     */
+    private static void updateMetadata(Storage s, int node) {
+        while (node > 0) {
+            node = (node - 1) >> 1;
+            int leftChild = 2 * node + 1;
+            s.setWeight(node,
+                        s.getWeight(leftChild) + s.getWeight(leftChild + 1));
+        }
+    }
+
+    /**
+     * Makes sure the storage accommodates {@code requestedCapacity} nodes. A
+     * grown storage is published to the readers as a whole.
+     *
+     * @param requestedCapacity the requested number of nodes.
+     * @return the current storage.
+     */
+    private Storage ensureCapacity(int requestedCapacity) {
+        Storage s = storage;
+
+        if (requestedCapacity <= s.capacity()) {
+            return s;
+        }
+
+        Storage newStorage =
+                new Storage(Math.max(requestedCapacity,
+                                     2 * s.capacity() + 1));
+
+        for (int node = 0; node < 2 * size - 1; ++node) {
+            newStorage.weights.set(node, s.weights.get(node));
+            newStorage.elements.set(node, s.elements.get(node));
+        }
+
+        storage = newStorage;
+        return newStorage;
+    }
+
+    public static void main(String[] args) {
+        OptimisticArrayBinaryTreeProbabilityDistribution<Integer> pd =
+                new OptimisticArrayBinaryTreeProbabilityDistribution<>();
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
@@ -0,0 +1,503 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+
+/**
+ * This class implements a thread-safe probability distribution that hashes
+ * its elements into a fixed number of shards. Each shard is an independent
+ * probability distribution guarded by its own lock, so that updates to
+ * different shards proceed in parallel. A small top-level table holds the
+ * total weight and the size of each shard.
+ *
+ * <p>Sampling is done in two levels: first a shard is chosen with probability
+ * proportional to its total weight, and then an element is sampled within the
+ * shard while holding only the lock of that shard. While updates are in
+ * progress, the shard totals may lag behind by the updates not yet finished.
+ *
+ * <p>The running time of each operation is that of the underlying shard
+ * implementation plus <tt>O(s)</tt> for sampling, where <tt>s</tt> is the
+ * number of shards.
+ *
+ * @param <E> the actual type of the elements stored in this probability
+ *            distribution.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ */
+public class ShardedProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The distance between the statistics of two adjacent shards in
+     * {@code shardStatistics}. Eight longs make up a typical cache line, so
+     * that updating one shard does not invalidate the statistics of another.
+     */
+    private static final int STRIDE = 8;
+
+    /**
+     * The offset of the total weight of a shard within its statistics.
+     */
+    private static final int WEIGHT_OFFSET = 0;
+
+    /**
+     * The offset of the size of a shard within its statistics.
+     */
+    private static final int SIZE_OFFSET = 1;
+
+    /**
+     * The shards.
+     */
+    private final AbstractProbabilityDistribution<E>[] shards;
+
+    /**
+     * {@code locks[i]} guards {@code shards[i]}.
+     */
+    private final ReentrantLock[] locks;
+
+    /**
+     * The total weight and the size of the shard {@code i} are stored at the
+     * indices {@code i * STRIDE + WEIGHT_OFFSET} and
+     * {@code i * STRIDE + SIZE_OFFSET}, respectively. The weights are stored
+     * as raw long bits.
+     */
+    private final AtomicLongArray shardStatistics;
+
+    /**
+     * Constructs this probability distribution over the input shards using a
+     * default random number generator.
+     *
+     * @param shards the empty probability distributions to use as shards.
+     */
+    public ShardedProbabilityDistribution(
+            List<? extends AbstractProbabilityDistribution<E>> shards) {
+        this(shards, RandomSources.threadLocal());
+    }
+
+    /**
+     * Constructs this probability distribution over the input shards using
+     * the input random number generator for choosing the shards.
+     *
+     * @param shards the empty probability distributions to use as shards.
+     * @param random the random number generator.
+     */
+    public ShardedProbabilityDistribution(
+            List<? extends AbstractProbabilityDistribution<E>> shards,
+            Random random) {
+        this(shards, RandomSources.of(random));
+    }
+
+    /**
+     * Constructs this probability distribution over the input shards using
+     * the input random source for choosing the shards. Since the sampling
+     * threads share the random source, it should be thread-safe, such as
+     * {@link RandomSources#threadLocal()}.
+     *
+     * @param shards the empty probability distributions to use as shards.
+     * @param random the random source.
+     */
+    public ShardedProbabilityDistribution(
+            List<? extends AbstractProbabilityDistribution<E>> shards,
+            RandomSource random) {
+        super(random);
+        Objects.requireNonNull(shards, "The shard list is null.");
+
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("The shard list is empty.");
+        }
+
+        this.shards = shards.toArray(
+                ShardedProbabilityDistribution.<E>newShardArray(shards.size()));
+        this.locks = new ReentrantLock[this.shards.length];
+
+        for (int i = 0; i < this.shards.length; ++i) {
+            Objects.requireNonNull(this.shards[i], "A shard is null.");
+
+            if (!this.shards[i].isEmpty()) {
+                throw new IllegalArgumentException(
+                        "The shard at index " + i + " is not empty.");
+            }
+
+            for (int j = 0; j < i; ++j) {
+                if (this.shards[i] == this.shards[j]) {
+                    throw new IllegalArgumentException(
+                            "The shards at indices " + j + " and " + i +
+                            " are the same object.");
+                }
+            }
+
+            this.locks[i] = new ReentrantLock();
+        }
+
+        this.shardStatistics =
+                new AtomicLongArray(this.shards.length * STRIDE);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+        int shard = getShardIndex(element);
+        locks[shard].lock();
+
+        try {
+            shards[shard].addElement(element, weight);
+            updateShardStatistics(shard);
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation groups the elements by shard and adds each group
+     * in bulk under a single acquisition of the shard lock.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void addAllValidated(E[] elements, double[] weights) {
+        int[] shardIndices = new int[elements.length];
+        int[] shardSizes = new int[shards.length];
+
+        for (int i = 0; i < elements.length; ++i) {
+            shardIndices[i] = getShardIndex(elements[i]);
+            ++shardSizes[shardIndices[i]];
+        }
+
+        E[][] shardElements = (E[][]) new Object[shards.length][];
+        double[][] shardWeights = new double[shards.length][];
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            shardElements[shard] = (E[]) new Object[shardSizes[shard]];
+            shardWeights[shard] = new double[shardSizes[shard]];
+            shardSizes[shard] = 0;
+        }
+
+        for (int i = 0; i < elements.length; ++i) {
+            int shard = shardIndices[i];
+            shardElements[shard][shardSizes[shard]] = elements[i];
+            shardWeights[shard][shardSizes[shard]] = weights[i];
+            ++shardSizes[shard];
+        }
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            if (shardSizes[shard] == 0) {
+                continue;
+            }
+
+            locks[shard].lock();
+
+            try {
+                shards[shard].addAll(shardElements[shard],
+                                     shardWeights[shard]);
+                updateShardStatistics(shard);
+            } finally {
+                locks[shard].unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getWeight(E element) {
+        int shard = getShardIndex(element);
+        locks[shard].lock();
+
+        try {
+            return shards[shard].getWeight(element);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean setWeight(E element, double weight) {
+        checkWeight(weight);
+        int shard = getShardIndex(element);
+        locks[shard].lock();
+
+        try {
+            if (!shards[shard].setWeight(element, weight)) {
+                return false;
+            }
+
+            updateShardStatistics(shard);
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>This implementation holds the shard lock for the entire adjustment.
+     */
+    @Override
+    public boolean adjustWeight(E element, double delta) {
+        int shard = getShardIndex(element);
+        locks[shard].lock();
+
+        try {
+            if (!shards[shard].adjustWeight(element, delta)) {
+                return false;
+            }
+
+            updateShardStatistics(shard);
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E sampleElement() {
+        while (true) {
+            checkNotEmpty(size());
+            int shard = sampleShard();
+
+            if (shard < 0) {
+                // All shards were emptied concurrently. Try again.
+                continue;
+            }
+
+            locks[shard].lock();
+
+            try {
+                if (!shards[shard].isEmpty()) {
+                    return shards[shard].sampleElement();
+                }
+            } finally {
+                locks[shard].unlock();
+            }
+
+            // The shard was emptied after it was chosen. Try again.
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        int shard = getShardIndex(element);
+        locks[shard].lock();
+
+        try {
+            return shards[shard].contains(element);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        int shard = getShardIndex(element);
+        locks[shard].lock();
+
+        try {
+            if (!shards[shard].removeElement(element)) {
+                return false;
+            }
+
+            updateShardStatistics(shard);
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        for (int shard = 0; shard < shards.length; ++shard) {
+            locks[shard].lock();
+
+            try {
+                shards[shard].clear();
+                updateShardStatistics(shard);
+            } finally {
+                locks[shard].unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size() {
+        int size = 0;
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            size += (int) shardStatistics.get(shard * STRIDE + SIZE_OFFSET);
+        }
+
+        return size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getTotalWeight() {
+        double sum = 0.0;
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            sum += getShardWeight(shard);
+        }
+
+        return sum;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<E, Double> toMap() {
+        Map<E, Double> result = new LinkedHashMap<>();
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            locks[shard].lock();
+
+            try {
+                result.putAll(shards[shard].toMap());
+            } finally {
+                locks[shard].unlock();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the number of shards.
+     */
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * Chooses a shard with probability proportional to its total weight.
+     *
+     * @return the index of the chosen shard, or <tt>-1</tt> if all the shards
+     *         are empty.
+     */
+    private int sampleShard() {
+        double value = getTotalWeight() * random.nextDouble();
+        int lastNonEmptyShard = -1;
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            double weight = getShardWeight(shard);
+
+            if (weight > 0.0) {
+                if (value < weight) {
+                    return shard;
+                }
+
+                value -= weight;
+                lastNonEmptyShard = shard;
+            }
+        }
+
+        // Round-off errors or concurrent updates may leave 'value' above the
+        // sum of the weights read.
+        return lastNonEmptyShard;
+    }
+
+    private double getShardWeight(int shard) {
+        return Double.longBitsToDouble(
+                shardStatistics.get(shard * STRIDE + WEIGHT_OFFSET));
+    }
+
+    /**
+     * Publishes the current total weight and size of the shard
+     * {@code shard}. Must be called while holding the lock of the shard.
+     *
+     * @param shard the index of the shard.
+     */
+    private void updateShardStatistics(int shard) {
+        shardStatistics.set(
+                shard * STRIDE + WEIGHT_OFFSET,
+                Double.doubleToRawLongBits(shards[shard].getTotalWeight()));
+        shardStatistics.set(shard * STRIDE + SIZE_OFFSET,
+                            shards[shard].size());
+    }
+
+    private int getShardIndex(E element) {
+        int hash = Objects.hashCode(element);
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> AbstractProbabilityDistribution<E>[] newShardArray(
+            int length) {
+        return (AbstractProbabilityDistribution<E>[])
+                new AbstractProbabilityDistribution<?>[length];
+    }
+
+    public static void main(String[] args) {
+        List<AbstractProbabilityDistribution<Integer>> shards =
+                new ArrayList<>();
+
+        for (int i = 0; i < 4; ++i) {
+            shards.add(new BinaryTreeProbabilityDistribution<Integer>());
+        }
+
+        ShardedProbabilityDistribution<Integer> pd =
+                new ShardedProbabilityDistribution<>(shards);
+
+        pd.addElement(0, 1.0);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, 3.0);
+
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 100; ++i) {
+            Integer myint = pd.sampleElement();
+            counts[myint]++;
+            System.out.println(myint);
+        }
+
+        System.out.println(Arrays.toString(counts));
+    }
+}
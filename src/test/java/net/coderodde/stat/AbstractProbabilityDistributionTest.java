@@ -0,0 +1,124 @@
+package net.coderodde.stat;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.coderodde.stat.support.ArrayProbabilityDistribution;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AbstractProbabilityDistributionTest {
+
+    @Test
+    public void testSampleCountsFitWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(1L);
+
+        for (int i = 0; i < 50; ++i) {
+            pd.addElement(i, 1.0 + i);
+        }
+
+        // A single multinomial draw is a valid sample for the Pearson test.
+        ChiSquare.assertFits(pd.sampleCounts(1_000_000L), pd.toMap(),
+                             1_000_000L);
+
+        // So is the sum of many small ones, which exercise the inversion.
+        Map<Integer, Long> counts = new HashMap<>();
+
+        for (int i = 0; i < 20_000; ++i) {
+            for (Map.Entry<Integer, Long> entry :
+                    pd.sampleCounts(50L).entrySet()) {
+                Long count = counts.get(entry.getKey());
+                counts.put(entry.getKey(),
+                           (count == null ? 0L : count) + entry.getValue());
+            }
+        }
+
+        ChiSquare.assertFits(counts, pd.toMap(), 1_000_000L);
+    }
+
+    @Test
+    public void testSampleCountsOfHugeDrawCount() {
+        AbstractProbabilityDistribution<Integer> pd = create(2L);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 3.0);
+        pd.addElement(3, 1e-12);
+        long draws = 1L << 60;
+        Map<Integer, Long> counts = pd.sampleCounts(draws);
+        long sum = 0L;
+
+        for (long count : counts.values()) {
+            assertTrue(count > 0L);
+            sum += count;
+        }
+
+        assertEquals(draws, sum);
+        assertEquals(0.25, counts.get(1) / (double) draws, 1e-6);
+    }
+
+    @Test
+    public void testSampleCountsOmitsUnchosenElements() {
+        AbstractProbabilityDistribution<Integer> pd = create(3L);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 1e-300);
+        assertEquals(1, pd.sampleCounts(1000L).size());
+        assertTrue(pd.sampleCounts(0L).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleCountsNegativeDrawsThrows() {
+        create(4L).sampleCounts(-1L);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSampleCountsOnEmptyThrows() {
+        create(5L).sampleCounts(1L);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testToMapOfLegacySubclassThrows() {
+        // A subclass written before toMap() existed still compiles.
+        AbstractProbabilityDistribution<Integer> pd =
+                new AbstractProbabilityDistribution<Integer>() {
+
+            @Override
+            public boolean isEmpty() {
+                return true;
+            }
+
+            @Override
+            public int size() {
+                return 0;
+            }
+
+            @Override
+            public boolean addElement(Integer element, double weight) {
+                return false;
+            }
+
+            @Override
+            public Integer sampleElement() {
+                return null;
+            }
+
+            @Override
+            public boolean contains(Integer element) {
+                return false;
+            }
+
+            @Override
+            public boolean removeElement(Integer element) {
+                return false;
+            }
+
+            @Override
+            public void clear() {
+            }
+        };
+
+        pd.toMap();
+    }
+
+    private static AbstractProbabilityDistribution<Integer> create(long seed) {
+        return new ArrayProbabilityDistribution<>(
+                RandomSources.splittable(seed));
+    }
+}
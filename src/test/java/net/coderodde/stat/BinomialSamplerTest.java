@@ -0,0 +1,181 @@
+package net.coderodde.stat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BinomialSamplerTest {
+
+    private static final int SAMPLES = 200_000;
+
+    /**
+     * Parameters within the reach of both methods: the mean is at least
+     * 10, so that {@link BinomialSampler#sample} would choose BTRD, and small
+     * enough for the inversion to stay fast and accurate.
+     */
+    private static final long[] TRIALS = { 20L, 100L, 1000L, 1_000_000L };
+    private static final double[] PROBABILITIES = { 0.5, 0.2, 0.05, 5e-5 };
+
+    @Test
+    public void testBtrdMeanAndVarianceMatchInversion() {
+        for (int i = 0; i < TRIALS.length; ++i) {
+            long n = TRIALS[i];
+            double p = PROBABILITIES[i];
+            RandomSource random = RandomSources.splittable(100L + i);
+            double[] btrd = new double[SAMPLES];
+            double[] inversion = new double[SAMPLES];
+
+            for (int j = 0; j < SAMPLES; ++j) {
+                btrd[j] = BinomialSampler.sampleByBtrd(random, n, p);
+                inversion[j] =
+                        BinomialSampler.sampleByInversion(random, n, p);
+            }
+
+            double mean = n * p;
+            double variance = mean * (1.0 - p);
+            double meanTolerance = 5.0 * Math.sqrt(2.0 * variance / SAMPLES);
+            double varianceTolerance =
+                    5.0 * variance * Math.sqrt(4.0 / SAMPLES);
+            String label = "n = " + n + ", p = " + p;
+
+            assertEquals(label, mean, mean(btrd), meanTolerance);
+            assertEquals(label, mean, mean(inversion), meanTolerance);
+            assertEquals(label,
+                         mean(inversion),
+                         mean(btrd),
+                         meanTolerance);
+            assertEquals(label, variance, variance(btrd), varianceTolerance);
+            assertEquals(label,
+                         variance(inversion),
+                         variance(btrd),
+                         varianceTolerance);
+        }
+    }
+
+    @Test
+    public void testBtrdFitsProbabilityMassFunction() {
+        assertFitsBinomial(true, 60L, 0.3, 1L);
+        assertFitsBinomial(true, 10_000L, 0.01, 2L);
+        assertFitsBinomial(true, 25L, 0.5, 3L);
+    }
+
+    @Test
+    public void testInversionFitsProbabilityMassFunction() {
+        assertFitsBinomial(false, 60L, 0.3, 4L);
+        assertFitsBinomial(false, 1000L, 0.002, 5L);
+    }
+
+    @Test
+    public void testEdgeCases() {
+        RandomSource random = RandomSources.splittable(6L);
+        assertEquals(0L, BinomialSampler.sample(random, 0L, 0.5));
+        assertEquals(0L, BinomialSampler.sample(random, 100L, 0.0));
+        assertEquals(100L, BinomialSampler.sample(random, 100L, 1.0));
+
+        for (int i = 0; i < 1000; ++i) {
+            long successes = BinomialSampler.sample(random, 1L << 40, 0.3);
+            assertTrue(successes >= 0L && successes <= 1L << 40);
+            // The standard deviation is about 4.8e5.
+            assertEquals(0.3 * (1L << 40), successes, 3e6);
+        }
+    }
+
+    @Test
+    public void testComplementaryProbability() {
+        RandomSource random = RandomSources.splittable(7L);
+        double sum = 0.0;
+
+        for (int i = 0; i < SAMPLES; ++i) {
+            sum += BinomialSampler.sample(random, 100L, 0.9);
+        }
+
+        assertEquals(90.0, sum / SAMPLES, 5.0 * Math.sqrt(9.0 / SAMPLES));
+    }
+
+    /**
+     * Checks the frequencies of the successes against the binomial
+     * probability mass function. The outcomes in the tails of total
+     * probability below <tt>1e-4</tt> are pooled with their neighbours.
+     */
+    private static void assertFitsBinomial(boolean btrd,
+                                           long n,
+                                           double p,
+                                           long seed) {
+        double[] pmf = new double[(int) n + 1];
+        // Recurrence from the mode outwards to avoid underflow.
+        int mode = (int) ((n + 1) * p);
+        pmf[mode] = 1.0;
+
+        for (int k = mode + 1; k <= n; ++k) {
+            pmf[k] = pmf[k - 1] * (n - k + 1) / k * p / (1.0 - p);
+        }
+
+        for (int k = mode - 1; k >= 0; --k) {
+            pmf[k] = pmf[k + 1] * (k + 1) / (n - k) * (1.0 - p) / p;
+        }
+
+        double sum = 0.0;
+
+        for (double mass : pmf) {
+            sum += mass;
+        }
+
+        int low = 0;
+        int high = (int) n;
+        double tail = 0.0;
+
+        while ((tail += pmf[low] / sum) < 1e-4) {
+            ++low;
+        }
+
+        tail = 0.0;
+
+        while ((tail += pmf[high] / sum) < 1e-4) {
+            --high;
+        }
+
+        Map<Integer, Double> weights = new HashMap<>();
+
+        for (int k = 0; k <= n; ++k) {
+            Integer bin = Math.max(low, Math.min(high, k));
+            Double weight = weights.get(bin);
+            weights.put(bin, (weight == null ? 0.0 : weight) + pmf[k]);
+        }
+
+        RandomSource random = RandomSources.splittable(seed);
+        Map<Integer, Long> counts = new HashMap<>();
+
+        for (int i = 0; i < SAMPLES; ++i) {
+            long k = btrd ?
+                    BinomialSampler.sampleByBtrd(random, n, p) :
+                    BinomialSampler.sampleByInversion(random, n, p);
+            assertTrue(k >= 0L && k <= n);
+            ChiSquare.increment(counts,
+                                (int) Math.max(low, Math.min(high, k)));
+        }
+
+        ChiSquare.assertFits(counts, weights, SAMPLES);
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0.0;
+
+        for (double value : values) {
+            sum += value;
+        }
+
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values) {
+        double mean = mean(values);
+        double sum = 0.0;
+
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+
+        return sum / (values.length - 1);
+    }
+}
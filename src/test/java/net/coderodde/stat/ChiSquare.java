@@ -0,0 +1,119 @@
+package net.coderodde.stat;
+
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This class provides Pearson's chi-square goodness-of-fit checks for the
+ * sampling frequencies of the probability distributions. The tests seed their
+ * random sources, so that the checks are deterministic.
+ */
+public final class ChiSquare {
+
+    /**
+     * The largest accepted value of the statistic transformed to the standard
+     * normal distribution by the Wilson-Hilferty approximation. A correct
+     * sampler exceeds it with probability of about one in a million.
+     */
+    private static final double MAX_NORMAL_DEVIATE = 4.75;
+
+    private ChiSquare() {}
+
+    /**
+     * Samples {@code draws} elements from {@code pd} and checks that the
+     * frequencies fit the weights returned by {@code pd.toMap()}.
+     *
+     * @param <E>   the element type.
+     * @param pd    the probability distribution to check.
+     * @param draws the number of draws.
+     */
+    public static <E> void assertSamplesFit(
+            AbstractProbabilityDistribution<E> pd,
+            int draws) {
+        Map<E, Long> counts = new HashMap<>();
+
+        for (int i = 0; i < draws; ++i) {
+            increment(counts, pd.sampleElement());
+        }
+
+        assertFits(counts, pd.toMap(), draws);
+    }
+
+    /**
+     * Checks that the counts {@code counts} of {@code draws} draws fit the
+     * weights {@code weights}.
+     *
+     * @param <E>     the element type.
+     * @param counts  maps each element drawn at least once to its count.
+     * @param weights maps each element to its weight.
+     * @param draws   the number of draws.
+     */
+    public static <E> void assertFits(Map<E, Long> counts,
+                                      Map<E, ? extends Number> weights,
+                                      long draws) {
+        double totalWeight = 0.0;
+        long totalCount = 0L;
+
+        for (Number weight : weights.values()) {
+            totalWeight += weight.doubleValue();
+        }
+
+        for (Map.Entry<E, Long> entry : counts.entrySet()) {
+            assertTrue("Sampled an absent element " + entry.getKey(),
+                       weights.containsKey(entry.getKey()));
+            totalCount += entry.getValue();
+        }
+
+        assertEquals(draws, totalCount);
+        double statistic = 0.0;
+
+        for (Map.Entry<E, ? extends Number> entry : weights.entrySet()) {
+            double expected =
+                    draws * (entry.getValue().doubleValue() / totalWeight);
+            Long count = counts.get(entry.getKey());
+            double observed = count == null ? 0.0 : count;
+
+            if (expected == 0.0) {
+                if (observed != 0.0) {
+                    fail("Sampled " + entry.getKey() + " " + count +
+                         " times, although its probability is zero.");
+                }
+
+                continue;
+            }
+
+            statistic += (observed - expected) * (observed - expected) /
+                         expected;
+        }
+
+        int degreesOfFreedom = weights.size() - 1;
+
+        if (degreesOfFreedom == 0) {
+            return;
+        }
+
+        double variance = 2.0 / (9.0 * degreesOfFreedom);
+        double deviate =
+                (Math.cbrt(statistic / degreesOfFreedom) - 1.0 + variance) /
+                Math.sqrt(variance);
+
+        assertTrue("chi2 = " + statistic + " with " + degreesOfFreedom +
+                   " degrees of freedom",
+                   deviate < MAX_NORMAL_DEVIATE);
+    }
+
+    /**
+     * Increments the count of the element {@code element}.
+     *
+     * @param <E>     the element type.
+     * @param counts  the counts.
+     * @param element the element to count.
+     */
+    public static <E> void increment(Map<E, Long> counts, E element) {
+        Long count = counts.get(element);
+        counts.put(element, count == null ? 1L : count + 1L);
+    }
+}
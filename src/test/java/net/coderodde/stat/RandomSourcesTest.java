@@ -0,0 +1,89 @@
+package net.coderodde.stat;
+
+import java.util.Random;
+import net.coderodde.stat.support.BinaryTreeProbabilityDistribution;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RandomSourcesTest {
+
+    @Test
+    public void testAdaptedRandomGivesItsOwnSequence() {
+        RandomSource source = RandomSources.of(new Random(1L));
+        Random random = new Random(1L);
+
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(random.nextDouble(), source.nextDouble(), 0.0);
+            assertEquals(random.nextInt(17), source.nextInt(17));
+            assertEquals(random.nextLong(), source.nextLong());
+        }
+    }
+
+    @Test
+    public void testThreadLocalRanges() {
+        RandomSource random = RandomSources.threadLocal();
+
+        for (int i = 0; i < 1000; ++i) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0.0 && value < 1.0);
+            int index = random.nextInt(5);
+            assertTrue(index >= 0 && index < 5);
+        }
+    }
+
+    @Test
+    public void testDistributionDrawsFromItsSource() {
+        // A source always returning 0.6 picks the element covering 60 % of
+        // the total weight.
+        RandomSource constant = new RandomSource() {
+
+            @Override
+            public double nextDouble() {
+                return 0.6;
+            }
+
+            @Override
+            public int nextInt(int bound) {
+                return 0;
+            }
+
+            @Override
+            public long nextLong() {
+                return 0L;
+            }
+        };
+
+        AbstractProbabilityDistribution<String> pd =
+                new BinaryTreeProbabilityDistribution<>(constant);
+        pd.addElement("a", 1.0);
+        pd.addElement("b", 1.0);
+
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("b", pd.sampleElement());
+        }
+    }
+
+    @Test
+    public void testSeededDistributionsAreReproducible() {
+        AbstractProbabilityDistribution<Integer> a =
+                new BinaryTreeProbabilityDistribution<>(
+                        RandomSources.splittable(2L));
+        AbstractProbabilityDistribution<Integer> b =
+                new BinaryTreeProbabilityDistribution<>(
+                        RandomSources.splittable(2L));
+
+        for (int i = 0; i < 100; ++i) {
+            a.addElement(i, 1.0 + i);
+            b.addElement(i, 1.0 + i);
+        }
+
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(a.sampleElement(), b.sampleElement());
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullRandomThrows() {
+        RandomSources.of(null);
+    }
+}
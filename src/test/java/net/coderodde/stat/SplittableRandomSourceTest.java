@@ -0,0 +1,99 @@
+package net.coderodde.stat;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SplittableRandomSourceTest {
+
+    private static final int COUNT = 10_000;
+
+    @Test
+    public void testSameSeedGivesSameSequence() {
+        SplittableRandomSource a = new SplittableRandomSource(42L);
+        SplittableRandomSource b = new SplittableRandomSource(42L);
+
+        for (int i = 0; i < COUNT; ++i) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+    }
+
+    @Test
+    public void testUnseededInstancesDoNotOverlap() {
+        for (int round = 0; round < 10; ++round) {
+            assertDisjoint(new SplittableRandomSource(),
+                           new SplittableRandomSource());
+        }
+    }
+
+    @Test
+    public void testSplitInstancesDoNotOverlap() {
+        SplittableRandomSource parent = new SplittableRandomSource(1L);
+        SplittableRandomSource child = parent.split();
+        assertDisjoint(parent, child);
+        assertDisjoint(child.split(), parent.split());
+    }
+
+    @Test
+    public void testNextDoubleIsUniform() {
+        SplittableRandomSource random = new SplittableRandomSource(2L);
+        Map<Integer, Long> counts = new HashMap<>();
+        Map<Integer, Double> weights = new HashMap<>();
+
+        for (int i = 0; i < 20; ++i) {
+            weights.put(i, 1.0);
+        }
+
+        for (int i = 0; i < 200_000; ++i) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0.0 && value < 1.0);
+            ChiSquare.increment(counts, (int) (20 * value));
+        }
+
+        ChiSquare.assertFits(counts, weights, 200_000);
+    }
+
+    @Test
+    public void testNextIntIsUniform() {
+        SplittableRandomSource random = new SplittableRandomSource(3L);
+        Map<Integer, Long> counts = new HashMap<>();
+        Map<Integer, Double> weights = new HashMap<>();
+
+        for (int i = 0; i < 7; ++i) {
+            weights.put(i, 1.0);
+        }
+
+        for (int i = 0; i < 200_000; ++i) {
+            ChiSquare.increment(counts, random.nextInt(7));
+        }
+
+        ChiSquare.assertFits(counts, weights, 200_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveBoundThrows() {
+        new SplittableRandomSource(4L).nextInt(0);
+    }
+
+    /**
+     * Checks that the first {@link #COUNT} numbers of {@code a} and
+     * {@code b} have nothing in common. Two independent sequences of 64-bit
+     * numbers this short collide with probability of about <tt>5e-12</tt>,
+     * whereas the same sequence at an offset would collide right away.
+     */
+    private static void assertDisjoint(SplittableRandomSource a,
+                                       SplittableRandomSource b) {
+        Set<Long> numbers = new HashSet<>();
+
+        for (int i = 0; i < COUNT; ++i) {
+            numbers.add(a.nextLong());
+        }
+
+        for (int i = 0; i < COUNT; ++i) {
+            assertFalse(numbers.contains(b.nextLong()));
+        }
+    }
+}
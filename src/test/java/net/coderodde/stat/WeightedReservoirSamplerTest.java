@@ -0,0 +1,168 @@
+package net.coderodde.stat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.coderodde.stat.support.ArrayProbabilityDistribution;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class WeightedReservoirSamplerTest {
+
+    @Test
+    public void testSingleSlotIsProportionalToWeight() {
+        RandomSource random = RandomSources.splittable(1L);
+        WeightedReservoirSampler<Integer> sampler =
+                new WeightedReservoirSampler<>(1, random);
+        Map<Integer, Double> weights = new HashMap<>();
+        Map<Integer, Long> counts = new HashMap<>();
+        int trials = 100_000;
+
+        for (int i = 0; i < 30; ++i) {
+            weights.put(i, 1.0 + i % 7);
+        }
+
+        for (int trial = 0; trial < trials; ++trial) {
+            sampler.clear();
+
+            for (int i = 0; i < 30; ++i) {
+                sampler.offer(i, weights.get(i));
+            }
+
+            List<Integer> reservoir = sampler.snapshot();
+            assertEquals(1, reservoir.size());
+            ChiSquare.increment(counts, reservoir.get(0));
+        }
+
+        ChiSquare.assertFits(counts, weights, trials);
+    }
+
+    @Test
+    public void testPairsFollowSamplingWithoutReplacement() {
+        // P({i, j}) = w_i / W * w_j / (W - w_i) + w_j / W * w_i / (W - w_j)
+        // for the weights 1, ..., 5 offered five times in a row, so that the
+        // skipping crosses several items.
+        double[] weights = { 1.0, 2.0, 3.0, 4.0, 5.0 };
+        int n = 5 * weights.length;
+        double total = 5 * 15.0;
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                double wi = weights[i % 5];
+                double wj = weights[j % 5];
+                expected.put(n * i + j,
+                             wi / total * wj / (total - wi) +
+                             wj / total * wi / (total - wj));
+            }
+        }
+
+        WeightedReservoirSampler<Integer> sampler =
+                new WeightedReservoirSampler<>(2, RandomSources.splittable(2L));
+        Map<Integer, Long> counts = new HashMap<>();
+        int trials = 300_000;
+
+        for (int trial = 0; trial < trials; ++trial) {
+            sampler.clear();
+
+            for (int i = 0; i < n; ++i) {
+                sampler.offer(i, weights[i % 5]);
+            }
+
+            List<Integer> reservoir = sampler.snapshot();
+            int i = Collections.min(reservoir);
+            int j = Collections.max(reservoir);
+            assertTrue(i < j);
+            ChiSquare.increment(counts, n * i + j);
+        }
+
+        ChiSquare.assertFits(counts, expected, trials);
+    }
+
+    @Test
+    public void testKeepsEverythingBelowCapacity() {
+        RandomSource random = RandomSources.splittable(3L);
+        WeightedReservoirSampler<Integer> sampler =
+                new WeightedReservoirSampler<>(10, random);
+
+        for (int i = 0; i < 7; ++i) {
+            assertTrue(sampler.offer(i, 1.0 + i));
+        }
+
+        assertEquals(7, sampler.size());
+        assertEquals(10, sampler.capacity());
+        assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6)),
+                     new HashSet<>(sampler.snapshot()));
+
+        AbstractProbabilityDistribution<Integer> pd =
+                sampler.toDistribution(
+                        new ArrayProbabilityDistribution<Integer>());
+        assertEquals(7, pd.size());
+        assertEquals(4.0, pd.getWeight(3), 0.0);
+
+        sampler.clear();
+        assertEquals(0, sampler.size());
+        assertTrue(sampler.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testLongStream() {
+        RandomSource random = RandomSources.splittable(4L);
+        WeightedReservoirSampler<Integer> sampler =
+                new WeightedReservoirSampler<>(10, random);
+        int insertions = 0;
+
+        for (int i = 0; i < 1_000_000; ++i) {
+            // Every 100 000th element outweighs the rest of the stream.
+            double weight = i % 100_000 == 0 ? 1e12 : 1.0;
+
+            if (sampler.offer(i, weight)) {
+                ++insertions;
+            }
+        }
+
+        Set<Integer> reservoir = new HashSet<>(sampler.snapshot());
+        assertEquals(10, reservoir.size());
+
+        for (int i = 0; i < 1_000_000; i += 100_000) {
+            assertTrue(reservoir.contains(i));
+        }
+
+        // The expected number of insertions is O(k log(n / k)).
+        assertTrue("insertions: " + insertions, insertions < 1000);
+    }
+
+    @Test
+    public void testExtremeWeights() {
+        RandomSource random = RandomSources.splittable(5L);
+        WeightedReservoirSampler<Integer> sampler =
+                new WeightedReservoirSampler<>(2, random);
+
+        for (int trial = 0; trial < 10_000; ++trial) {
+            sampler.clear();
+            sampler.offer(0, Double.MIN_VALUE);
+            sampler.offer(1, 1e-300);
+            sampler.offer(2, 1.0);
+            sampler.offer(3, Double.MIN_VALUE);
+            sampler.offer(4, Double.MAX_VALUE);
+            sampler.offer(5, 1e-300);
+
+            assertEquals(new HashSet<>(Arrays.asList(2, 4)),
+                         new HashSet<>(sampler.snapshot()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveWeightThrows() {
+        new WeightedReservoirSampler<Integer>(1).offer(1, -1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveCapacityThrows() {
+        new WeightedReservoirSampler<Integer>(0);
+    }
+}
@@ -0,0 +1,82 @@
+package net.coderodde.stat.support;
+
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AliasProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new AliasProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testExplicitRebuild() {
+        AliasProbabilityDistribution<Integer> pd =
+                new AliasProbabilityDistribution<>(
+                        RandomSources.splittable(11L));
+
+        for (int i = 0; i < 50; ++i) {
+            pd.addElement(i, 1.0 + i);
+        }
+
+        pd.rebuild();
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+        pd.setWeight(10, 100.0);
+        pd.removeElement(20);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testRebuildResumsTotalWeight() {
+        AliasProbabilityDistribution<Integer> pd =
+                new AliasProbabilityDistribution<>(
+                        RandomSources.splittable(13L));
+        Random random = new Random(13L);
+
+        for (int i = 0; i < 10; ++i) {
+            pd.addElement(i, random.nextDouble());
+        }
+
+        // Adding and removing a huge weight leaves round-off errors in the
+        // incremental total of the small weights left behind.
+        for (int i = 0; i < 1000; ++i) {
+            pd.addElement(10, Math.scalb(random.nextDouble(), 100));
+            pd.setWeight(random.nextInt(10), random.nextDouble());
+            pd.removeElement(10);
+        }
+
+        pd.rebuild();
+        // A distribution built from scratch sums the very same weights in
+        // the very same order.
+        AliasProbabilityDistribution<Integer> fresh =
+                new AliasProbabilityDistribution<>(pd);
+        assertEquals(fresh.getTotalWeight(), pd.getTotalWeight(), 0.0);
+    }
+
+    @Test
+    public void testRemoveAllButOne() {
+        AbstractProbabilityDistribution<Integer> pd = create(12L);
+
+        for (int i = 0; i < 10; ++i) {
+            pd.addElement(i, 1.0);
+        }
+
+        pd.sampleElement();
+
+        for (int i = 0; i < 9; ++i) {
+            assertTrue(pd.removeElement(i));
+        }
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.valueOf(9), pd.sampleElement());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.coderodde.stat.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ArrayBinaryTreeProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new ArrayBinaryTreeProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testGrowAndShrink() {
+        AbstractProbabilityDistribution<Integer> pd = create(61L);
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+
+        // Crossing several powers of two in both directions.
+        for (int i = 0; i < 1000; ++i) {
+            pd.addElement(i, 1.0 + i % 13);
+            expected.put(i, 1.0 + i % 13);
+        }
+
+        for (int i = 0; i < 1000; ++i) {
+            if (i % 50 != 0) {
+                assertTrue(pd.removeElement(i));
+                expected.remove(i);
+            }
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+
+        for (int i = 1000; i < 1300; ++i) {
+            pd.addElement(i, 0.5);
+            expected.put(i, 0.5);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+}
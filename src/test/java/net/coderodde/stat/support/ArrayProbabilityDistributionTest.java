@@ -0,0 +1,49 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ArrayProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new ArrayProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testRemoveInShuffledOrder() {
+        AbstractProbabilityDistribution<Integer> pd = create(41L);
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < 300; ++i) {
+            pd.addElement(i, 1.0 + i % 11);
+            expected.put(i, 1.0 + i % 11);
+            order.add(i);
+        }
+
+        Collections.shuffle(order, new Random(41L));
+
+        // Each removal moves the last entry into the hole.
+        for (Integer element : order.subList(0, 250)) {
+            assertTrue(pd.removeElement(element));
+            assertFalse(pd.removeElement(element));
+            expected.remove(element);
+            assertTrue(expected.containsKey(pd.sampleElement()));
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+}
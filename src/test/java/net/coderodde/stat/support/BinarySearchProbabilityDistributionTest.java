@@ -0,0 +1,113 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BinarySearchProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new BinarySearchProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testInterleavedUpdatesAcrossCompactions() {
+        AbstractProbabilityDistribution<Integer> pd = create(31L);
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+        Random random = new Random(31L);
+        int nextElement = 0;
+
+        for (int round = 0; round < 5; ++round) {
+            while (expected.size() < 100) {
+                double weight = 0.1 + random.nextDouble();
+                pd.addElement(nextElement, weight);
+                expected.put(nextElement++, weight);
+            }
+
+            // Removing 70 of the 100 elements makes the holes outnumber the
+            // entries, which compacts the storage at least once per round,
+            // sometimes right between a weight update and a sample.
+            List<Integer> victims = new ArrayList<>(expected.keySet());
+
+            for (int i = 0; i < 70; ++i) {
+                Integer victim =
+                        victims.remove(random.nextInt(victims.size()));
+                assertTrue(pd.removeElement(victim));
+                assertFalse(pd.removeElement(victim));
+                expected.remove(victim);
+
+                Integer element = victims.get(random.nextInt(victims.size()));
+                double weight = 0.1 + random.nextDouble();
+
+                switch (random.nextInt(4)) {
+                    case 0:
+                        assertTrue(pd.setWeight(element, weight));
+                        expected.put(element, weight);
+                        break;
+
+                    case 1:
+                        pd.addElement(element, weight);
+                        expected.put(element, expected.get(element) + weight);
+                        break;
+
+                    case 2:
+                        pd.addElement(nextElement, weight);
+                        expected.put(nextElement, weight);
+                        victims.add(nextElement++);
+                        break;
+
+                    default:
+                        assertTrue(expected.containsKey(pd.sampleElement()));
+                }
+
+                assertEquals(expected.size(), pd.size());
+                assertEquals(expected.get(element), pd.getWeight(element),
+                             0.0);
+            }
+
+            assertWeights(expected, pd);
+            ChiSquare.assertSamplesFit(pd, DRAWS);
+        }
+    }
+
+    @Test
+    public void testRemoveDownToOneAndRefill() {
+        AbstractProbabilityDistribution<Integer> pd = create(32L);
+
+        for (int i = 0; i < 64; ++i) {
+            pd.addElement(i, 1.0 + i);
+        }
+
+        for (int i = 0; i < 63; ++i) {
+            assertTrue(pd.removeElement(i));
+        }
+
+        assertEquals(1, pd.size());
+        assertEquals(64.0, pd.getTotalWeight(), 0.0);
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.valueOf(63), pd.sampleElement());
+        }
+
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+        expected.put(63, 64.0);
+
+        for (int i = 100; i < 110; ++i) {
+            pd.addElement(i, 2.0);
+            expected.put(i, 2.0);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+}
@@ -0,0 +1,117 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BinaryTreeProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    private static final int SIZE = 1 << 12;
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new BinaryTreeProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testHeightAfterRemovalsInAscendingOrder() {
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < SIZE; ++i) {
+            order.add(i);
+        }
+
+        checkHeightWhileRemoving(order, 51L);
+    }
+
+    @Test
+    public void testHeightAfterRemovalsInDescendingOrder() {
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = SIZE - 1; i >= 0; --i) {
+            order.add(i);
+        }
+
+        checkHeightWhileRemoving(order, 52L);
+    }
+
+    @Test
+    public void testHeightAfterRemovalsInRandomOrder() {
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < SIZE; ++i) {
+            order.add(i);
+        }
+
+        Collections.shuffle(order, new Random(53L));
+        checkHeightWhileRemoving(order, 53L);
+    }
+
+    @Test
+    public void testHeightAfterRemovingAllButScatteredElements() {
+        // The survivors are spread all over the tree, so that merely splicing
+        // out the deleted leaves would leave them at their original depth.
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < SIZE; ++i) {
+            if (i % 64 != 0) {
+                order.add(i);
+            }
+        }
+
+        checkHeightWhileRemoving(order, 54L);
+    }
+
+    /**
+     * Inserts the elements <tt>0, 1, ..., SIZE - 1</tt>, removes the elements
+     * in {@code order}, and checks that the height of the tree is at most 
+     * <tt>ceil(log2 n)</tt> throughout, <tt>n</tt> being the current size.
+     * Then inserts more elements and checks the height and the sampling
+     * frequencies once more.
+     */
+    private void checkHeightWhileRemoving(List<Integer> order, long seed) {
+        BinaryTreeProbabilityDistribution<Integer> pd =
+                new BinaryTreeProbabilityDistribution<>(
+                        RandomSources.splittable(seed));
+
+        for (int i = 0; i < SIZE; ++i) {
+            pd.addElement(i, 1.0 + i % 7);
+        }
+
+        assertHeight(pd);
+
+        for (int i = 0; i < order.size(); ++i) {
+            assertTrue(pd.removeElement(order.get(i)));
+
+            if (i % 97 == 0 || order.size() - i < 40) {
+                assertHeight(pd);
+            }
+        }
+
+        for (int i = SIZE; i < SIZE + 100; ++i) {
+            pd.addElement(i, 1.0);
+            assertHeight(pd);
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    private static void assertHeight(
+            BinaryTreeProbabilityDistribution<Integer> pd) {
+        int size = pd.size();
+        int maximumHeight = size <= 1 ?
+                            size - 1 :
+                            32 - Integer.numberOfLeadingZeros(size - 1);
+        assertTrue("height " + pd.getHeight() + " at size " + size,
+                   pd.getHeight() <= maximumHeight);
+    }
+}
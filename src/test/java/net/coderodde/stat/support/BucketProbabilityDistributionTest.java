@@ -0,0 +1,71 @@
+package net.coderodde.stat.support;
+
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BucketProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new BucketProbabilityDistribution<>(random);
+    }
+
+    @Test(timeout = 10_000L)
+    public void testMaximumWeight() {
+        AbstractProbabilityDistribution<Integer> pd = create(31L);
+        pd.addElement(1, Double.MAX_VALUE);
+
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(Integer.valueOf(1), pd.sampleElement());
+        }
+    }
+
+    @Test(timeout = 10_000L)
+    public void testSmallestSubnormalWeight() {
+        AbstractProbabilityDistribution<Integer> pd = create(32L);
+        pd.addElement(1, Double.MIN_VALUE);
+
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(Integer.valueOf(1), pd.sampleElement());
+        }
+    }
+
+    @Test
+    public void testWeightsInManyBuckets() {
+        AbstractProbabilityDistribution<Integer> pd = create(33L);
+
+        // One element per exponent from 2^-20 to 2^19, with weights that are
+        // not powers of two.
+        for (int i = 0; i < 40; ++i) {
+            pd.addElement(i, Math.scalb(1.75, i - 20));
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+
+        for (int i = 20; i < 40; ++i) {
+            pd.removeElement(i);
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testWeightsMovingBetweenBuckets() {
+        AbstractProbabilityDistribution<Integer> pd = create(34L);
+
+        for (int i = 0; i < 30; ++i) {
+            pd.addElement(i, 1.0);
+        }
+
+        for (int i = 0; i < 30; ++i) {
+            pd.setWeight(i, Math.scalb(1.0 + i / 30.0, i % 5));
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+}
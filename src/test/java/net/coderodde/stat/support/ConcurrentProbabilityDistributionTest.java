@@ -0,0 +1,100 @@
+package net.coderodde.stat.support;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    /**
+     * Publishes every change right away, so that the contract may check the
+     * total weight and the frequencies immediately after each update.
+     */
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new ConcurrentProbabilityDistribution<>(random,
+                                                       1,
+                                                       0L,
+                                                       TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testNullElement() {
+        ConcurrentProbabilityDistribution<Integer> pd =
+                new ConcurrentProbabilityDistribution<>(
+                        RandomSources.splittable(1L));
+
+        assertTrue(pd.addElement(null, 1.0));
+        assertTrue(pd.addElement(null, 2.0));
+        assertTrue(pd.contains(null));
+        assertEquals(1, pd.size());
+        assertEquals(3.0, pd.getWeight(null), 0.0);
+        assertNull(pd.sampleElement());
+
+        assertTrue(pd.setWeight(null, 4.0));
+        assertTrue(pd.adjustWeight(null, 1.0));
+        assertEquals(5.0, pd.getWeight(null), 0.0);
+
+        pd.addElement(1, 5.0);
+        Map<Integer, Double> map = pd.toMap();
+        assertEquals(2, map.size());
+        assertEquals(5.0, map.get(null), 0.0);
+
+        assertTrue(pd.removeElement(null));
+        assertFalse(pd.contains(null));
+        assertFalse(pd.removeElement(null));
+        pd.flush();
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.valueOf(1), pd.sampleElement());
+        }
+    }
+
+    @Test
+    public void testSamplingWaitsForPendingChangesOnEmptySnapshot() {
+        ConcurrentProbabilityDistribution<Integer> pd =
+                new ConcurrentProbabilityDistribution<>(
+                        RandomSources.splittable(2L),
+                        1000,
+                        1L,
+                        TimeUnit.HOURS);
+
+        pd.addElement(7, 1.0);
+        assertEquals(Integer.valueOf(7), pd.sampleElement());
+    }
+
+    @Test
+    public void testTotalWeightFollowsPublishedSnapshot() {
+        ConcurrentProbabilityDistribution<Integer> pd =
+                new ConcurrentProbabilityDistribution<>(
+                        RandomSources.splittable(3L),
+                        1000,
+                        1L,
+                        TimeUnit.HOURS);
+
+        pd.addElement(1, 2.0);
+        pd.addElement(2, 3.0);
+        assertEquals(0.0, pd.getTotalWeight(), 0.0);
+        pd.flush();
+        assertEquals(5.0, pd.getTotalWeight(), 0.0);
+
+        pd.setWeight(2, 0.5);
+        assertEquals(5.0, pd.getTotalWeight(), 0.0);
+        pd.flush();
+        assertEquals(2.5, pd.getTotalWeight(), 0.0);
+
+        pd.clear();
+        assertEquals(0.0, pd.getTotalWeight(), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSampleEmptyWithDefaultBatchingThrows() {
+        new ConcurrentProbabilityDistribution<Integer>().sampleElement();
+    }
+}
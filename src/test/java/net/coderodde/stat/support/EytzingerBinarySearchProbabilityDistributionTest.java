@@ -0,0 +1,18 @@
+package net.coderodde.stat.support;
+
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+
+/**
+ * Runs all the tests of {@link BinarySearchProbabilityDistributionTest} with
+ * the Eytzinger layout turned on.
+ */
+public class EytzingerBinarySearchProbabilityDistributionTest
+extends BinarySearchProbabilityDistributionTest {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new BinarySearchProbabilityDistribution<>(random, true);
+    }
+}
@@ -0,0 +1,121 @@
+package net.coderodde.stat.support;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FenwickProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new FenwickProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testGrowAndShrink() {
+        AbstractProbabilityDistribution<Integer> pd = create(21L);
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+
+        for (int i = 0; i < 1000; ++i) {
+            pd.addElement(i, 1.0 + i % 13);
+            expected.put(i, 1.0 + i % 13);
+        }
+
+        for (int i = 0; i < 1000; i += 3) {
+            assertTrue(pd.removeElement(i));
+            expected.remove(i);
+        }
+
+        for (int i = 1000; i < 1100; ++i) {
+            pd.addElement(i, 0.5);
+            expected.put(i, 0.5);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testAdjustWeightUpdatesPrefixSums() {
+        AbstractProbabilityDistribution<Integer> pd = create(22L);
+
+        for (int i = 0; i < 20; ++i) {
+            pd.addElement(i, 1.0);
+        }
+
+        assertTrue(pd.adjustWeight(3, 9.0));
+        assertTrue(pd.adjustWeight(4, -0.5));
+        assertFalse(pd.adjustWeight(99, 1.0));
+        assertEquals(10.0, pd.getWeight(3), 0.0);
+        assertEquals(0.5, pd.getWeight(4), 0.0);
+        assertEquals(28.5, pd.getTotalWeight(), 1e-12);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testSmallWeightsBesideHugeOnes() {
+        AbstractProbabilityDistribution<Integer> pd = create(23L);
+
+        for (int i = 0; i < 64; ++i) {
+            pd.addElement(i, i % 2 == 0 ? 1e17 : 1.0 + i);
+        }
+
+        // A tree node covering 1e17 and 2.0 cannot tell the 2.0 apart.
+        for (int i = 1; i < 64; i += 2) {
+            assertEquals(1.0 + i, pd.getWeight(i), 0.0);
+        }
+
+        assertTrue(pd.setWeight(5, 2.5));
+        assertTrue(pd.adjustWeight(7, 1.0));
+
+        for (int i = 0; i < 64; i += 2) {
+            assertTrue(pd.removeElement(i));
+        }
+
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+
+        for (int i = 1; i < 64; i += 2) {
+            expected.put(i, i == 5 ? 2.5 : i == 7 ? 9.0 : 1.0 + i);
+        }
+
+        assertWeights(expected, pd);
+        assertEquals(expected, pd.toMap());
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testSampleDistinctBesideHugeWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(24L);
+        Map<Integer, Double> smallWeights = new LinkedHashMap<>();
+
+        for (int i = 1; i <= 4; ++i) {
+            pd.addElement(-i, 1e17);
+            pd.addElement(i, (double) i);
+            smallWeights.put(i, (double) i);
+        }
+
+        Map<Integer, Long> counts = new LinkedHashMap<>();
+        int rounds = 20_000;
+
+        for (int round = 0; round < rounds; ++round) {
+            // The huge weights come first, the fifth element is small.
+            List<Integer> sample = pd.sampleDistinct(5);
+
+            for (int i = 0; i < 4; ++i) {
+                assertTrue(sample.get(i) < 0);
+            }
+
+            ChiSquare.increment(counts, sample.get(4));
+        }
+
+        ChiSquare.assertFits(counts, smallWeights, rounds);
+        assertEquals(1.0, pd.getWeight(1), 0.0);
+    }
+}
@@ -0,0 +1,75 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HuffmanTreeProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new HuffmanTreeProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testInsertionsAfterBuild() {
+        AbstractProbabilityDistribution<Integer> pd = create(41L);
+        Random random = new Random(41L);
+
+        for (int i = 0; i < 100; ++i) {
+            pd.addElement(i, 0.01 + random.nextDouble());
+        }
+
+        // Builds the tree.
+        pd.sampleElement();
+
+        // Fewer insertions than elements are attached to the existing tree.
+        for (int i = 100; i < 150; ++i) {
+            pd.addElement(i, i % 2 == 0 ? 1e-3 : 10.0);
+            assertTrue(pd.contains(pd.sampleElement()));
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testInterleavedInsertionsAndRemovals() {
+        AbstractProbabilityDistribution<Integer> pd = create(42L);
+        List<Integer> present = new ArrayList<>();
+        Random random = new Random(42L);
+
+        for (int i = 0; i < 2000; ++i) {
+            pd.addElement(i, 1.0 / (1 + random.nextInt(1000)));
+            present.add(i);
+            assertTrue(pd.contains(pd.sampleElement()));
+
+            if (i % 3 == 0) {
+                int index = random.nextInt(present.size());
+                assertTrue(pd.removeElement(present.get(index)));
+                present.set(index, present.get(present.size() - 1));
+                present.remove(present.size() - 1);
+            }
+        }
+
+        assertEquals(present.size(), pd.size());
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testSkewedWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(43L);
+
+        for (int i = 0; i < 64; ++i) {
+            pd.addElement(i, Math.scalb(1.0, -i / 2));
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+}
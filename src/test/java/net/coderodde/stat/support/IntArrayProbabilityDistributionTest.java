@@ -0,0 +1,13 @@
+package net.coderodde.stat.support;
+
+import net.coderodde.stat.AbstractIntProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+
+public class IntArrayProbabilityDistributionTest
+extends IntProbabilityDistributionContract {
+
+    @Override
+    protected AbstractIntProbabilityDistribution create(RandomSource random) {
+        return new IntArrayProbabilityDistribution(random);
+    }
+}
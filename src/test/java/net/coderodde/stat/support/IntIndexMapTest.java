@@ -0,0 +1,134 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IntIndexMapTest {
+
+    @Test
+    public void testBasicOperations() {
+        IntIndexMap map = new IntIndexMap();
+        assertEquals(IntIndexMap.NO_INDEX, map.get(1));
+        map.put(1, 10);
+        map.put(-1, 20);
+        map.put(Integer.MIN_VALUE, 30);
+        assertEquals(10, map.get(1));
+        assertEquals(20, map.get(-1));
+        assertEquals(30, map.get(Integer.MIN_VALUE));
+        map.put(1, 11);
+        assertEquals(11, map.get(1));
+        assertEquals(11, map.remove(1));
+        assertEquals(IntIndexMap.NO_INDEX, map.remove(1));
+        assertEquals(IntIndexMap.NO_INDEX, map.get(1));
+        map.clear();
+        assertEquals(IntIndexMap.NO_INDEX, map.get(-1));
+    }
+
+    @Test
+    public void testRemovalFromWrappingClusters() {
+        // Seven keys homed at the last two slots of the initial table of 16,
+        // so that their probe runs wrap around to the front. Every removal
+        // order must leave the remaining keys reachable.
+        List<Integer> keys = new ArrayList<>();
+        keys.addAll(keysHomedAt(14, 4));
+        keys.addAll(keysHomedAt(15, 3));
+        // A key homed right after the wrap shares the run as well.
+        keys.add(keysHomedAt(1, 1).get(0));
+        checkAllRemovalOrders(keys, new ArrayList<Integer>());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        IntIndexMap map = new IntIndexMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(1L);
+
+        for (int i = 0; i < 200_000; ++i) {
+            // Few distinct keys, many of them agreeing in their low bits.
+            int key = (random.nextInt(300) - 150) << (random.nextBoolean() ?
+                                                      0 : 20);
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    int index = random.nextInt(1000);
+                    map.put(key, index);
+                    expected.put(key, index);
+                    break;
+
+                case 1:
+                    Integer removed = expected.remove(key);
+                    assertEquals(removed == null ? IntIndexMap.NO_INDEX :
+                                                   removed,
+                                 map.remove(key));
+                    break;
+
+                default:
+                    Integer value = expected.get(key);
+                    assertEquals(value == null ? IntIndexMap.NO_INDEX : value,
+                                 map.get(key));
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    private static void checkAllRemovalOrders(List<Integer> remaining,
+                                              List<Integer> removed) {
+        if (remaining.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < remaining.size(); ++i) {
+            IntIndexMap map = new IntIndexMap();
+            List<Integer> keys = new ArrayList<>(removed);
+            keys.addAll(remaining);
+
+            for (int j = 0; j < keys.size(); ++j) {
+                map.put(keys.get(j), j);
+            }
+
+            for (Integer key : removed) {
+                map.remove(key);
+            }
+
+            List<Integer> nextRemaining = new ArrayList<>(remaining);
+            Integer key = nextRemaining.remove(i);
+            assertEquals(keys.indexOf(key), map.remove(key));
+            assertEquals(IntIndexMap.NO_INDEX, map.get(key));
+
+            for (Integer other : nextRemaining) {
+                assertEquals(keys.indexOf(other), map.get(other));
+            }
+
+            List<Integer> nextRemoved = new ArrayList<>(removed);
+            nextRemoved.add(key);
+            checkAllRemovalOrders(nextRemaining, nextRemoved);
+        }
+    }
+
+    /**
+     * Returns the {@code count} smallest non-negative keys whose home slot in
+     * a table of 16 slots is {@code slot}. Mirrors the hash function of
+     * {@link IntIndexMap}.
+     */
+    private static List<Integer> keysHomedAt(int slot, int count) {
+        List<Integer> keys = new ArrayList<>();
+
+        for (int key = 0; keys.size() < count; ++key) {
+            int hash = key * 0x9e3779b9;
+
+            if (((hash ^ (hash >>> 16)) & 15) == slot) {
+                keys.add(key);
+            }
+        }
+
+        return keys;
+    }
+}
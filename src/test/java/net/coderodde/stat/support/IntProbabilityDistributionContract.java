@@ -0,0 +1,250 @@
+package net.coderodde.stat.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractIntProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * This class holds the tests every probability distribution over {@code int}
+ * elements must pass. The test classes of the actual distributions extend it.
+ */
+public abstract class IntProbabilityDistributionContract {
+
+    /**
+     * The number of draws per chi-square check.
+     */
+    protected static final int DRAWS = 200_000;
+
+    /**
+     * Creates an empty probability distribution.
+     *
+     * @param random the random source to use.
+     * @return a new probability distribution.
+     */
+    protected abstract AbstractIntProbabilityDistribution
+        create(RandomSource random);
+
+    /**
+     * Creates an empty probability distribution using a seeded random source.
+     *
+     * @param seed the seed of the random source.
+     * @return a new probability distribution.
+     */
+    protected AbstractIntProbabilityDistribution create(long seed) {
+        return create(RandomSources.splittable(seed));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSampleEmptyThrows() {
+        create(1L).sampleInt();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveWeightThrows() {
+        create(1L).addElement(1, -1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNWeightThrows() {
+        create(1L).addElement(1, Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfiniteWeightThrows() {
+        create(1L).addElement(1, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void testSingleElement() {
+        AbstractIntProbabilityDistribution pd = create(2L);
+        pd.addElement(Integer.MIN_VALUE, 0.5);
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.MIN_VALUE, pd.sampleInt());
+        }
+
+        assertTrue(pd.removeElement(Integer.MIN_VALUE));
+        assertFalse(pd.removeElement(Integer.MIN_VALUE));
+        assertTrue(pd.isEmpty());
+    }
+
+    @Test
+    public void testSamplingFrequencies() {
+        AbstractIntProbabilityDistribution pd = create(3L);
+        Map<Integer, Double> expected = new HashMap<>();
+        Random random = new Random(3L);
+
+        for (int i = 0; i < 100; ++i) {
+            // Multiples of 2^16 agree in their low bits.
+            int element = (i - 50) << 16;
+            double weight = 0.01 + random.nextDouble();
+            pd.addElement(element, weight);
+            expected.put(element, weight);
+        }
+
+        assertEquals(100, pd.size());
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testSamplingFrequenciesAfterUpdates() {
+        AbstractIntProbabilityDistribution pd = create(4L);
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+        Random random = new Random(4L);
+
+        for (int i = 0; i < 5000; ++i) {
+            int element = random.nextInt(80) - 40;
+            double weight = 0.01 + random.nextDouble();
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    pd.addElement(element, weight);
+                    Double current = expected.get(element);
+                    expected.put(element,
+                                 current == null ? weight : current + weight);
+                    break;
+
+                case 1:
+                    assertEquals(expected.remove(element) != null,
+                                 pd.removeElement(element));
+                    break;
+
+                default:
+                    if (!expected.isEmpty()) {
+                        assertTrue(expected.containsKey(pd.sampleInt()));
+                    }
+            }
+
+            assertEquals(expected.size(), pd.size());
+            assertEquals(expected.containsKey(element), pd.contains(element));
+        }
+
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testBatchSamplingFrequencies() {
+        AbstractIntProbabilityDistribution pd = create(5L);
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < 50; ++i) {
+            pd.addElement(i, 1.0 + i % 9);
+            expected.put(i, 1.0 + i % 9);
+        }
+
+        int[] out = new int[1001];
+        out[1000] = -1;
+        Map<Integer, Long> counts = new HashMap<>();
+
+        for (int round = 0; round < DRAWS / 1000; ++round) {
+            pd.sampleInts(1000, out);
+
+            for (int i = 0; i < 1000; ++i) {
+                ChiSquare.increment(counts, out[i]);
+            }
+        }
+
+        assertEquals(-1, out[1000]);
+        ChiSquare.assertFits(counts, expected, DRAWS);
+    }
+
+    @Test
+    public void testBatchSamplingAllocatesNothing() {
+        java.lang.management.ThreadMXBean bean =
+                ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() &&
+                   threads.isThreadAllocatedMemoryEnabled());
+
+        AbstractIntProbabilityDistribution pd = create(6L);
+
+        for (int i = 0; i < 100; ++i) {
+            pd.addElement(i, 1.0 + i);
+        }
+
+        int[] out = new int[10_000];
+        pd.sampleInts(out.length, out);
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        for (int round = 0; round < 100; ++round) {
+            pd.sampleInts(out.length, out);
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        // Any per-batch buffer of the sampled values would take 80 kB.
+        assertTrue("allocated " + allocated + " bytes", allocated < 80_000);
+    }
+
+    @Test
+    public void testBatchSamplingCounts() {
+        AbstractIntProbabilityDistribution pd = create(7L);
+        int[] out = new int[3];
+        pd.sampleInts(0, out);
+
+        try {
+            pd.sampleInts(1, out);
+            fail();
+        } catch (IllegalStateException ex) {
+            // Expected.
+        }
+
+        pd.addElement(1, 1.0);
+
+        try {
+            pd.sampleInts(-1, out);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        try {
+            pd.sampleInts(4, out);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testClear() {
+        AbstractIntProbabilityDistribution pd = create(8L);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 2.0);
+        pd.clear();
+        assertTrue(pd.isEmpty());
+        assertFalse(pd.contains(1));
+        pd.addElement(3, 1.0);
+        assertEquals(3, pd.sampleInt());
+    }
+
+    /**
+     * Samples {@link #DRAWS} elements from {@code pd} and checks that the
+     * frequencies fit the weights {@code expected}.
+     *
+     * @param expected the expected weights.
+     * @param pd       the probability distribution to check.
+     */
+    protected static void assertSamplesFit(
+            Map<Integer, Double> expected,
+            AbstractIntProbabilityDistribution pd) {
+        Map<Integer, Long> counts = new HashMap<>();
+
+        for (int i = 0; i < DRAWS; ++i) {
+            ChiSquare.increment(counts, pd.sampleInt());
+        }
+
+        ChiSquare.assertFits(counts, expected, DRAWS);
+    }
+}
@@ -0,0 +1,14 @@
+package net.coderodde.stat.support;
+
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+
+public class LinkedListProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new LinkedListProbabilityDistribution<>(random);
+    }
+}
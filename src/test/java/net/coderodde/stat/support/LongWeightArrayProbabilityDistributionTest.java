@@ -0,0 +1,14 @@
+package net.coderodde.stat.support;
+
+import net.coderodde.stat.AbstractLongWeightProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+
+public class LongWeightArrayProbabilityDistributionTest
+extends LongWeightProbabilityDistributionContract {
+
+    @Override
+    protected AbstractLongWeightProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new LongWeightArrayProbabilityDistribution<>(random);
+    }
+}
@@ -0,0 +1,335 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractLongWeightProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This class holds the tests every probability distribution with {@code long}
+ * weights must pass. The test classes of the actual distributions extend it.
+ */
+public abstract class LongWeightProbabilityDistributionContract {
+
+    /**
+     * The number of draws per chi-square check.
+     */
+    protected static final int DRAWS = 200_000;
+
+    /**
+     * Creates an empty probability distribution.
+     *
+     * @param random the random source to use.
+     * @return a new probability distribution.
+     */
+    protected abstract AbstractLongWeightProbabilityDistribution<Integer>
+        create(RandomSource random);
+
+    /**
+     * Creates an empty probability distribution using a seeded random source.
+     *
+     * @param seed the seed of the random source.
+     * @return a new probability distribution.
+     */
+    protected AbstractLongWeightProbabilityDistribution<Integer>
+        create(long seed) {
+        return create(RandomSources.splittable(seed));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSampleEmptyThrows() {
+        create(1L).sampleElement();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroWeightThrows() {
+        create(1L).addElement(1, 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeightThrows() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(1L);
+        pd.addElement(1, 1L);
+        pd.setWeight(1, -1L);
+    }
+
+    @Test
+    public void testSingleElement() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(2L);
+        pd.addElement(7, 3L);
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.valueOf(7), pd.sampleElement());
+        }
+    }
+
+    @Test
+    public void testSamplingFrequencies() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(3L);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(3L);
+
+        for (int i = 0; i < 100; ++i) {
+            long weight = 1L + random.nextInt(1000);
+            pd.addElement(i, weight);
+            expected.put(i, weight);
+        }
+
+        assertWeights(expected, pd);
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testSamplingFrequenciesAfterUpdates() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(4L);
+        Map<Integer, Long> expected = new LinkedHashMap<>();
+        Random random = new Random(4L);
+
+        for (int i = 0; i < 5000; ++i) {
+            Integer element = random.nextInt(80);
+            long weight = 1L + random.nextInt(1000);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertTrue(pd.addElement(element, weight));
+                    Long current = expected.get(element);
+                    expected.put(element,
+                                 current == null ? weight : current + weight);
+                    break;
+
+                case 1:
+                    assertEquals(expected.containsKey(element),
+                                 pd.setWeight(element, weight));
+
+                    if (expected.containsKey(element)) {
+                        expected.put(element, weight);
+                    }
+
+                    break;
+
+                case 2:
+                    assertEquals(expected.remove(element) != null,
+                                 pd.removeElement(element));
+                    break;
+
+                default:
+                    if (!expected.isEmpty()) {
+                        assertTrue(expected.containsKey(pd.sampleElement()));
+                    }
+            }
+
+            assertEquals(expected.size(), pd.size());
+            assertEquals(expected.containsKey(element), pd.contains(element));
+        }
+
+        assertWeights(expected, pd);
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testRemoveAllAndRefill() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(5L);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(5L);
+
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < 33; ++i) {
+                pd.addElement(i, 1L + i);
+                expected.put(i, 1L + i);
+            }
+
+            List<Integer> order = new ArrayList<>(expected.keySet());
+            Collections.shuffle(order, random);
+
+            for (Integer element : order.subList(0, 30)) {
+                assertTrue(pd.removeElement(element));
+                assertFalse(pd.removeElement(element));
+                expected.remove(element);
+                assertWeights(expected, pd);
+                assertTrue(expected.containsKey(pd.sampleElement()));
+            }
+
+            assertSamplesFit(expected, pd);
+
+            for (Integer element : expected.keySet()) {
+                assertTrue(pd.removeElement(element));
+            }
+
+            expected.clear();
+            assertTrue(pd.isEmpty());
+            assertEquals(0L, pd.getTotalWeight());
+        }
+    }
+
+    @Test
+    public void testWeightsNearLongMaxValue() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(6L);
+        pd.addElement(1, Long.MAX_VALUE - 10L);
+        pd.addElement(2, 10L);
+        assertEquals(Long.MAX_VALUE, pd.getTotalWeight());
+
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(Integer.valueOf(1), pd.sampleElement());
+        }
+
+        pd.clear();
+        Map<Integer, Long> expected = new HashMap<>();
+        expected.put(1, Long.MAX_VALUE / 2L);
+        expected.put(2, Long.MAX_VALUE / 2L);
+        expected.put(3, 1L);
+
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            pd.addElement(entry.getKey(), entry.getValue());
+        }
+
+        assertWeights(expected, pd);
+        assertEquals(Long.MAX_VALUE, pd.getTotalWeight());
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testNonPowerOfTwoTotalWeightIsUnbiased() {
+        // The total weight is 3 * 2^61. Reducing the 63 random bits modulo it
+        // without rejection would choose the first element half the time.
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(7L);
+        Map<Integer, Long> expected = new HashMap<>();
+
+        for (int i = 1; i <= 3; ++i) {
+            pd.addElement(i, 1L << 61);
+            expected.put(i, 1L << 61);
+        }
+
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testPowerOfTwoTotalWeight() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(8L);
+        Map<Integer, Long> expected = new HashMap<>();
+        expected.put(1, 1L << 61);
+        expected.put(2, 1L << 60);
+        expected.put(3, (1L << 60) - 1L);
+        expected.put(4, 1L);
+
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            pd.addElement(entry.getKey(), entry.getValue());
+        }
+
+        assertEquals(1L << 62, pd.getTotalWeight());
+        assertSamplesFit(expected, pd);
+    }
+
+    @Test
+    public void testAddElementOverflowThrows() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(9L);
+        pd.addElement(1, Long.MAX_VALUE - 1L);
+        pd.addElement(2, 1L);
+
+        try {
+            pd.addElement(3, 1L);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        try {
+            pd.addElement(1, Long.MAX_VALUE);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        // The failed calls must leave the distribution intact.
+        assertEquals(2, pd.size());
+        assertFalse(pd.contains(3));
+        assertEquals(Long.MAX_VALUE - 1L, pd.getWeight(1));
+        assertEquals(Long.MAX_VALUE, pd.getTotalWeight());
+    }
+
+    @Test
+    public void testSetWeightOverflowThrows() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(10L);
+        pd.addElement(1, Long.MAX_VALUE / 2L);
+        pd.addElement(2, Long.MAX_VALUE / 2L);
+
+        try {
+            pd.setWeight(2, Long.MAX_VALUE / 2L + 2L);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        assertEquals(Long.MAX_VALUE / 2L, pd.getWeight(2));
+        assertEquals(Long.MAX_VALUE - 1L, pd.getTotalWeight());
+        // Shrinking and growing within the limit is fine.
+        assertTrue(pd.setWeight(1, 1L));
+        assertTrue(pd.setWeight(2, Long.MAX_VALUE - 1L));
+        assertEquals(Long.MAX_VALUE, pd.getTotalWeight());
+        assertFalse(pd.setWeight(3, 1L));
+    }
+
+    @Test
+    public void testClear() {
+        AbstractLongWeightProbabilityDistribution<Integer> pd = create(11L);
+        pd.addElement(1, 1L);
+        pd.addElement(2, 2L);
+        pd.clear();
+        assertTrue(pd.isEmpty());
+        assertEquals(0L, pd.getTotalWeight());
+        assertEquals(0L, pd.getWeight(1));
+        assertFalse(pd.contains(2));
+        pd.addElement(3, 1L);
+        assertEquals(Integer.valueOf(3), pd.sampleElement());
+    }
+
+    /**
+     * Checks that the weights of {@code pd}, and their total, equal
+     * {@code expected} exactly.
+     *
+     * @param expected the expected weights.
+     * @param pd       the probability distribution to check.
+     */
+    protected static void assertWeights(
+            Map<Integer, Long> expected,
+            AbstractLongWeightProbabilityDistribution<Integer> pd) {
+        assertEquals(expected.size(), pd.size());
+        long totalWeight = 0L;
+
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            assertTrue(pd.contains(entry.getKey()));
+            assertEquals(entry.getValue().longValue(),
+                         pd.getWeight(entry.getKey()));
+            totalWeight += entry.getValue();
+        }
+
+        assertEquals(totalWeight, pd.getTotalWeight());
+    }
+
+    /**
+     * Samples {@link #DRAWS} elements from {@code pd} and checks that the
+     * frequencies fit the weights {@code expected}.
+     *
+     * @param expected the expected weights.
+     * @param pd       the probability distribution to check.
+     */
+    protected static void assertSamplesFit(
+            Map<Integer, Long> expected,
+            AbstractLongWeightProbabilityDistribution<Integer> pd) {
+        Map<Integer, Long> counts = new HashMap<>();
+
+        for (int i = 0; i < DRAWS; ++i) {
+            ChiSquare.increment(counts, pd.sampleElement());
+        }
+
+        ChiSquare.assertFits(counts, expected, DRAWS);
+    }
+}
@@ -0,0 +1,57 @@
+package net.coderodde.stat.support;
+
+import java.util.Map;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OptimisticArrayBinaryTreeProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new OptimisticArrayBinaryTreeProbabilityDistribution<>(random);
+    }
+
+    @Test
+    public void testNullElement() {
+        OptimisticArrayBinaryTreeProbabilityDistribution<Integer> pd =
+                new OptimisticArrayBinaryTreeProbabilityDistribution<>(
+                        RandomSources.splittable(1L));
+
+        assertTrue(pd.addElement(null, 1.0));
+        assertTrue(pd.addElement(null, 2.0));
+        assertTrue(pd.contains(null));
+        assertEquals(1, pd.size());
+        assertEquals(3.0, pd.getWeight(null), 0.0);
+        assertNull(pd.sampleElement());
+
+        assertTrue(pd.setWeight(null, 4.0));
+        assertTrue(pd.adjustWeight(null, 1.0));
+        assertEquals(5.0, pd.getWeight(null), 0.0);
+
+        pd.addElement(1, 5.0);
+        pd.addElement(2, 5.0);
+        Map<Integer, Double> map = pd.toMap();
+        assertEquals(3, map.size());
+        assertEquals(5.0, map.get(null), 0.0);
+
+        boolean sawNull = false;
+
+        for (int i = 0; i < 1000; ++i) {
+            sawNull |= pd.sampleElement() == null;
+        }
+
+        assertTrue(sawNull);
+        assertTrue(pd.removeElement(null));
+        assertFalse(pd.contains(null));
+        assertFalse(pd.removeElement(null));
+
+        for (int i = 0; i < 100; ++i) {
+            assertNotNull(pd.sampleElement());
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This class holds the tests every probability distribution must pass. The
+ * test classes of the actual distributions extend it.
+ */
+public abstract class ProbabilityDistributionContract {
+
+    /**
+     * The number of draws per chi-square check.
+     */
+    protected static final int DRAWS = 200_000;
+
+    /**
+     * Creates an empty probability distribution.
+     *
+     * @param random the random source to use.
+     * @return a new probability distribution.
+     */
+    protected abstract AbstractProbabilityDistribution<Integer>
+        create(RandomSource random);
+
+    /**
+     * Creates an empty probability distribution using a seeded random source.
+     *
+     * @param seed the seed of the random source.
+     * @return a new probability distribution.
+     */
+    protected AbstractProbabilityDistribution<Integer> create(long seed) {
+        return create(RandomSources.splittable(seed));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSampleEmptyThrows() {
+        create(1L).sampleElement();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveWeightThrows() {
+        create(1L).addElement(1, 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNWeightThrows() {
+        create(1L).addElement(1, Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfiniteWeightThrows() {
+        create(1L).addElement(1, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void testSingleElement() {
+        AbstractProbabilityDistribution<Integer> pd = create(2L);
+        pd.addElement(7, 0.5);
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.valueOf(7), pd.sampleElement());
+        }
+    }
+
+    @Test
+    public void testSamplingFrequencies() {
+        AbstractProbabilityDistribution<Integer> pd = create(3L);
+        Random random = new Random(3L);
+
+        for (int i = 0; i < 100; ++i) {
+            pd.addElement(i, 0.01 + random.nextDouble());
+        }
+
+        assertEquals(100, pd.size());
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testSamplingFrequenciesAfterUpdates() {
+        AbstractProbabilityDistribution<Integer> pd = create(4L);
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+        Random random = new Random(4L);
+
+        for (int i = 0; i < 3000; ++i) {
+            Integer element = random.nextInt(80);
+            double weight = 0.01 + random.nextDouble();
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    pd.addElement(element, weight);
+                    Double current = expected.get(element);
+                    expected.put(element,
+                                 current == null ? weight : current + weight);
+                    break;
+
+                case 1:
+                    assertEquals(expected.containsKey(element),
+                                 pd.setWeight(element, weight));
+
+                    if (expected.containsKey(element)) {
+                        expected.put(element, weight);
+                    }
+
+                    break;
+
+                case 2:
+                    assertEquals(expected.remove(element) != null,
+                                 pd.removeElement(element));
+                    break;
+
+                default:
+                    if (!expected.isEmpty()) {
+                        assertTrue(expected.containsKey(pd.sampleElement()));
+                    }
+            }
+
+            assertEquals(expected.size(), pd.size());
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testBulkAddition() {
+        AbstractProbabilityDistribution<Integer> pd = create(5L);
+        Integer[] elements = new Integer[200];
+        double[] weights = new double[200];
+
+        for (int i = 0; i < elements.length; ++i) {
+            elements[i] = i % 150;
+            weights[i] = 1.0 + i % 7;
+        }
+
+        pd.addElement(0, 3.0);
+        pd.addAll(elements, weights);
+        assertEquals(150, pd.size());
+        // 3.0 + (1.0 + 0 % 7) + (1.0 + 150 % 7)
+        assertEquals(8.0, pd.getWeight(0), 0.0);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testBulkAdditionFromMap() {
+        AbstractProbabilityDistribution<Integer> pd = create(17L);
+        Map<Integer, Double> weights = new LinkedHashMap<>();
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < 100; ++i) {
+            weights.put(i, 1.0 + i % 5);
+            expected.put(i, 1.0 + i % 5);
+        }
+
+        pd.addElement(0, 2.0);
+        pd.addElement(100, 4.0);
+        pd.addAll(weights);
+        expected.put(0, 3.0);
+        expected.put(100, 4.0);
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testFailedBulkAdditionAddsNothing() {
+        AbstractProbabilityDistribution<Integer> pd = create(18L);
+        pd.addElement(1, 1.0);
+        Map<Integer, Double> expected = pd.toMap();
+
+        // The invalid weight comes last, after the valid ones.
+        for (double invalid : new double[]{ 0.0, -1.0, Double.NaN,
+                                            Double.POSITIVE_INFINITY }) {
+            Map<Integer, Double> weights = new LinkedHashMap<>();
+            weights.put(1, 2.0);
+            weights.put(2, 3.0);
+            weights.put(3, invalid);
+
+            try {
+                pd.addAll(weights);
+                fail();
+            } catch (IllegalArgumentException ex) {
+                // Expected.
+            }
+
+            assertWeights(expected, pd);
+
+            try {
+                pd.addAll(new Integer[]{ 1, 2, 3 },
+                          new double[]{ 2.0, 3.0, invalid });
+                fail();
+            } catch (IllegalArgumentException ex) {
+                // Expected.
+            }
+
+            assertWeights(expected, pd);
+        }
+
+        try {
+            pd.addAll(new Integer[]{ 1, 2, 3 }, new double[]{ 2.0, 3.0 });
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        assertWeights(expected, pd);
+        assertFalse(pd.contains(2));
+    }
+
+    @Test
+    public void testSetWeight() {
+        AbstractProbabilityDistribution<Integer> pd = create(19L);
+
+        for (int i = 0; i < 20; ++i) {
+            pd.addElement(i, 1.0);
+        }
+
+        assertFalse(pd.setWeight(20, 1.0));
+        assertFalse(pd.contains(20));
+
+        for (double invalid : new double[]{ 0.0, -1.0, Double.NaN,
+                                            Double.POSITIVE_INFINITY }) {
+            try {
+                pd.setWeight(5, invalid);
+                fail();
+            } catch (IllegalArgumentException ex) {
+                // Expected.
+            }
+        }
+
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < 20; ++i) {
+            expected.put(i, 1.0);
+        }
+
+        assertWeights(expected, pd);
+
+        for (int i = 0; i < 20; i += 2) {
+            assertTrue(pd.setWeight(i, 1.0 + i));
+            expected.put(i, 1.0 + i);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testAdjustWeight() {
+        AbstractProbabilityDistribution<Integer> pd = create(20L);
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < 20; ++i) {
+            pd.addElement(i, 10.0);
+            expected.put(i, 10.0);
+        }
+
+        assertFalse(pd.adjustWeight(20, 1.0));
+        assertFalse(pd.contains(20));
+        assertEquals(0.0, pd.getWeight(20), 0.0);
+
+        try {
+            pd.adjustWeight(3, -10.0);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        assertWeights(expected, pd);
+
+        for (int i = 0; i < 20; ++i) {
+            double delta = i % 2 == 0 ? 2.0 * i : -9.5;
+            assertTrue(pd.adjustWeight(i, delta));
+            expected.put(i, 10.0 + delta);
+            assertEquals(10.0 + delta, pd.getWeight(i), 1e-9);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testTinyWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(6L);
+
+        for (int i = 1; i <= 10; ++i) {
+            pd.addElement(i, i * 1e-300);
+        }
+
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testSubnormalWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(7L);
+
+        // The random values are multiples of Double.MIN_VALUE as well, so that
+        // the weights must span many of them to be sampled proportionally.
+        double unit = Math.scalb(1.0, -1060);
+
+        for (int i = 1; i <= 8; ++i) {
+            pd.addElement(i, i * unit);
+        }
+
+        assertEquals(36 * unit, pd.getTotalWeight(), 0.0);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testHugeWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(8L);
+        pd.addElement(1, Double.MAX_VALUE / 2.0);
+        pd.addElement(2, Double.MAX_VALUE / 4.0);
+        pd.addElement(3, Double.MAX_VALUE / 8.0);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testWidelySpreadWeights() {
+        AbstractProbabilityDistribution<Integer> pd = create(9L);
+        pd.addElement(1, 1e17);
+        pd.addElement(2, 1.0);
+        pd.addElement(3, Double.MIN_VALUE);
+        pd.addElement(4, 1e17);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+        assertTrue(pd.removeElement(1));
+        assertTrue(pd.removeElement(4));
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test
+    public void testBatchSamplingFrequencies() {
+        AbstractProbabilityDistribution<Integer> pd = create(13L);
+
+        for (int i = 0; i < 50; ++i) {
+            pd.addElement(i, 1.0 + i % 9);
+        }
+
+        // Small and large batches may take different paths.
+        for (int count : new int[]{ 5, 1000 }) {
+            Integer[] out = new Integer[count + 1];
+            Map<Integer, Long> counts = new HashMap<>();
+
+            for (int round = 0; round < DRAWS / count; ++round) {
+                pd.sampleElements(count, out);
+
+                for (int i = 0; i < count; ++i) {
+                    ChiSquare.increment(counts, out[i]);
+                }
+
+                assertNull(out[count]);
+            }
+
+            ChiSquare.assertFits(counts, pd.toMap(), DRAWS / count * count);
+        }
+    }
+
+    @Test
+    public void testBatchPositionsAreExchangeable() {
+        AbstractProbabilityDistribution<Integer> pd = create(14L);
+
+        for (int i = 0; i < 10; ++i) {
+            pd.addElement(i, 1.0 + i);
+        }
+
+        // Whatever order the batch is generated in, its first component
+        // alone must follow the weights.
+        Integer[] out = new Integer[16];
+        Map<Integer, Long> counts = new HashMap<>();
+        int rounds = 50_000;
+
+        for (int round = 0; round < rounds; ++round) {
+            pd.sampleElements(out.length, out);
+            ChiSquare.increment(counts, out[0]);
+        }
+
+        ChiSquare.assertFits(counts, pd.toMap(), rounds);
+    }
+
+    @Test
+    public void testBatchSamplingIntoList() {
+        AbstractProbabilityDistribution<Integer> pd = create(15L);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 2.0);
+        List<Integer> out = new ArrayList<>();
+        out.add(0);
+        pd.sampleElements(100, out);
+        assertEquals(101, out.size());
+        assertEquals(Integer.valueOf(0), out.get(0));
+
+        for (Integer element : out.subList(1, out.size())) {
+            assertTrue(pd.contains(element));
+        }
+    }
+
+    @Test
+    public void testBatchSamplingCounts() {
+        AbstractProbabilityDistribution<Integer> pd = create(16L);
+        Integer[] out = new Integer[3];
+        // Nothing to sample, so that even an empty distribution may do it.
+        pd.sampleElements(0, out);
+
+        try {
+            pd.sampleElements(1, out);
+            fail();
+        } catch (IllegalStateException ex) {
+            // Expected.
+        }
+
+        pd.addElement(1, 1.0);
+
+        try {
+            pd.sampleElements(-1, out);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        try {
+            pd.sampleElements(4, out);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testClear() {
+        AbstractProbabilityDistribution<Integer> pd = create(10L);
+        pd.addElement(1, 1.0);
+        pd.addElement(2, 2.0);
+        pd.clear();
+        assertTrue(pd.isEmpty());
+        assertEquals(0.0, pd.getTotalWeight(), 0.0);
+        pd.addElement(3, 1.0);
+        assertEquals(Integer.valueOf(3), pd.sampleElement());
+    }
+
+    /**
+     * Checks that the weights of {@code pd} equal {@code expected} up to
+     * round-off.
+     *
+     * @param expected the expected weights.
+     * @param pd       the probability distribution to check.
+     */
+    protected static void assertWeights(
+            Map<Integer, Double> expected,
+            AbstractProbabilityDistribution<Integer> pd) {
+        Map<Integer, Double> actual = pd.toMap();
+        assertEquals(expected.keySet(), actual.keySet());
+        double totalWeight = 0.0;
+
+        for (Map.Entry<Integer, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(),
+                         actual.get(entry.getKey()),
+                         1e-9 * entry.getValue());
+            assertEquals(entry.getValue(),
+                         pd.getWeight(entry.getKey()),
+                         1e-9 * entry.getValue());
+            totalWeight += entry.getValue();
+        }
+
+        assertEquals(totalWeight, pd.getTotalWeight(), 1e-9 * totalWeight);
+    }
+}
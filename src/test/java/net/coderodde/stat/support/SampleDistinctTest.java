@@ -0,0 +1,155 @@
+package net.coderodde.stat.support;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.RandomSources;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@code sampleDistinct} of all the probability distributions, both the
+ * overriding implementations and the default one.
+ */
+public class SampleDistinctTest {
+
+    private static final Class<?>[] CLASSES = {
+        AliasProbabilityDistribution.class,
+        ArrayBinaryTreeProbabilityDistribution.class,
+        ArrayProbabilityDistribution.class,
+        BinarySearchProbabilityDistribution.class,
+        BinaryTreeProbabilityDistribution.class,
+        BucketProbabilityDistribution.class,
+        ConcurrentProbabilityDistribution.class,
+        FenwickProbabilityDistribution.class,
+        HuffmanTreeProbabilityDistribution.class,
+        LinkedListProbabilityDistribution.class,
+        OptimisticArrayBinaryTreeProbabilityDistribution.class,
+    };
+
+    @Test
+    public void testAllElementsWhenKEqualsSize() {
+        for (Class<?> c : CLASSES) {
+            AbstractProbabilityDistribution<Integer> pd = create(c, 1L);
+
+            for (int i = 0; i < 100; ++i) {
+                pd.addElement(i, 1.0 + i % 10);
+            }
+
+            for (int round = 0; round < 20; ++round) {
+                assertAllDistinct(c, pd, pd.sampleDistinct(100), 100);
+            }
+
+            assertAllDistinct(c, pd, pd.sampleDistinct(1000), 100);
+            assertTrue(c.getName(), pd.sampleDistinct(0).isEmpty());
+        }
+    }
+
+    @Test(timeout = 30_000L)
+    public void testExtremeWeightsWhenKEqualsSize() {
+        for (Class<?> c : CLASSES) {
+            AbstractProbabilityDistribution<Integer> pd = create(c, 2L);
+            pd.addElement(0, 1.0);
+            pd.addElement(1, 1e17);
+            pd.addElement(2, 1.0);
+            pd.addElement(3, 1e-300);
+            pd.addElement(4, Double.MIN_VALUE);
+            pd.addElement(5, Double.MAX_VALUE / 8.0);
+
+            for (int round = 0; round < 1000; ++round) {
+                List<Integer> sample = pd.sampleDistinct(6);
+                assertAllDistinct(c, pd, sample, 6);
+                assertEquals(c.getName(), Integer.valueOf(5), sample.get(0));
+            }
+        }
+    }
+
+    @Test
+    public void testDistributionOfOrderedPairs() {
+        // P(i, j) = w_i / W * w_j / (W - w_i) for the weights 1, 2, 3, 4.
+        double[] weights = { 1.0, 2.0, 3.0, 4.0 };
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < weights.length; ++i) {
+            for (int j = 0; j < weights.length; ++j) {
+                if (i != j) {
+                    expected.put(4 * i + j,
+                                 weights[i] / 10.0 *
+                                 weights[j] / (10.0 - weights[i]));
+                }
+            }
+        }
+
+        for (Class<?> c : CLASSES) {
+            AbstractProbabilityDistribution<Integer> pd = create(c, 3L);
+
+            for (int i = 0; i < weights.length; ++i) {
+                pd.addElement(i, weights[i]);
+            }
+
+            Map<Integer, Long> counts = new HashMap<>();
+            int draws = 100_000;
+
+            for (int i = 0; i < draws; ++i) {
+                List<Integer> sample = pd.sampleDistinct(2);
+                ChiSquare.increment(counts, 4 * sample.get(0) + sample.get(1));
+            }
+
+            ChiSquare.assertFits(counts, expected, draws);
+
+            // The distribution itself must be left intact.
+            Map<Integer, Double> map = pd.toMap();
+            assertEquals(c.getName(), weights.length, map.size());
+
+            for (int i = 0; i < weights.length; ++i) {
+                assertEquals(c.getName(), weights[i], map.get(i), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testNegativeCountThrows() {
+        for (Class<?> c : CLASSES) {
+            AbstractProbabilityDistribution<Integer> pd = create(c, 4L);
+            pd.addElement(1, 1.0);
+
+            try {
+                pd.sampleDistinct(-1);
+                fail(c.getName());
+            } catch (IllegalArgumentException ex) {
+                // Expected.
+            }
+        }
+    }
+
+    private static void assertAllDistinct(
+            Class<?> c,
+            AbstractProbabilityDistribution<Integer> pd,
+            List<Integer> sample,
+            int expectedSize) {
+        assertEquals(c.getName(), expectedSize, sample.size());
+        Set<Integer> seen = new HashSet<>();
+
+        for (Integer element : sample) {
+            assertTrue(c.getName(), pd.contains(element));
+            assertTrue(c.getName() + " repeated " + element, seen.add(element));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AbstractProbabilityDistribution<Integer> create(Class<?> c,
+                                                                   long seed) {
+        try {
+            return (AbstractProbabilityDistribution<Integer>)
+                    c.getConstructor(RandomSource.class)
+                     .newInstance(RandomSources.splittable(seed));
+        } catch (ReflectiveOperationException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+}
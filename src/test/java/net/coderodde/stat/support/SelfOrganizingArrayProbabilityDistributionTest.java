@@ -0,0 +1,76 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Runs all the tests of {@link ArrayProbabilityDistributionTest} with the
+ * self-organizing mode turned on.
+ */
+public class SelfOrganizingArrayProbabilityDistributionTest
+extends ArrayProbabilityDistributionTest {
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        return new ArrayProbabilityDistribution<>(random, true);
+    }
+
+    @Test
+    public void testFrequenciesAfterManyReorderings() {
+        AbstractProbabilityDistribution<Integer> pd = create(42L);
+        Map<Integer, Double> expected = new HashMap<>();
+        List<Integer> order = new ArrayList<>();
+        Random random = new Random(42L);
+
+        for (int i = 0; i < 200; ++i) {
+            order.add(i);
+        }
+
+        Collections.shuffle(order, random);
+
+        for (Integer element : order) {
+            // Zipf weights, inserted in random order.
+            pd.addElement(element, 1.0 / (element + 1));
+            expected.put(element, 1.0 / (element + 1));
+        }
+
+        for (int round = 0; round < 3; ++round) {
+            // Let the storage converge, then check the samples drawn from
+            // the reordered storage.
+            for (int i = 0; i < DRAWS; ++i) {
+                pd.sampleElement();
+            }
+
+            assertWeights(expected, pd);
+            ChiSquare.assertSamplesFit(pd, DRAWS);
+
+            // Reverse the weights, so that the storage has to reorganize
+            // itself all over again.
+            for (int i = 0; i < 200; ++i) {
+                double weight = round % 2 == 0 ? 1.0 / (200 - i) :
+                                                 1.0 / (i + 1);
+                assertTrue(pd.setWeight(i, weight));
+                expected.put(i, weight);
+            }
+        }
+
+        // Removals must keep working once the entries have moved.
+        for (int i = 0; i < 200; i += 3) {
+            assertTrue(pd.removeElement(i));
+            expected.remove(i);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+}
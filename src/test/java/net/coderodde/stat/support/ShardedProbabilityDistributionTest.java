@@ -0,0 +1,98 @@
+package net.coderodde.stat.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.coderodde.stat.AbstractProbabilityDistribution;
+import net.coderodde.stat.ChiSquare;
+import net.coderodde.stat.RandomSource;
+import net.coderodde.stat.SplittableRandomSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShardedProbabilityDistributionTest
+extends ProbabilityDistributionContract {
+
+    private static final int SHARDS = 4;
+
+    @Override
+    protected AbstractProbabilityDistribution<Integer>
+        create(RandomSource random) {
+        List<AbstractProbabilityDistribution<Integer>> shards =
+                new ArrayList<>();
+
+        for (int i = 0; i < SHARDS; ++i) {
+            shards.add(new BinaryTreeProbabilityDistribution<Integer>(
+                    new SplittableRandomSource(random.nextLong())));
+        }
+
+        return new ShardedProbabilityDistribution<>(shards, random);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final AbstractProbabilityDistribution<Integer> pd = create(71L);
+        List<Thread> threads = new ArrayList<>();
+        final int elementsPerThread = 2000;
+
+        for (int t = 0; t < 4; ++t) {
+            final int offset = t * elementsPerThread;
+
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+                    for (int i = offset; i < offset + elementsPerThread; ++i) {
+                        pd.addElement(i, 1.0 + i % 5);
+                        pd.sampleElement();
+                    }
+
+                    // Removing every other element again.
+                    for (int i = offset; i < offset + elementsPerThread;
+                            i += 2) {
+                        pd.removeElement(i);
+                        pd.adjustWeight(i + 1, 1.0);
+                    }
+                }
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int i = 1; i < 4 * elementsPerThread; i += 2) {
+            expected.put(i, 2.0 + i % 5);
+        }
+
+        assertWeights(expected, pd);
+        ChiSquare.assertSamplesFit(pd, DRAWS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoShardsThrows() {
+        new ShardedProbabilityDistribution<>(
+                Collections.<AbstractProbabilityDistribution<Integer>>
+                        emptyList(),
+                new SplittableRandomSource(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonEmptyShardThrows() {
+        AbstractProbabilityDistribution<Integer> shard =
+                new BinaryTreeProbabilityDistribution<>(
+                        new SplittableRandomSource(1L));
+        shard.addElement(1, 1.0);
+        new ShardedProbabilityDistribution<>(
+                Collections.singletonList(shard),
+                new SplittableRandomSource(1L));
+    }
+}